@@ -0,0 +1,48 @@
+package uk.ac.ed.inf;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import uk.ac.ed.inf.ilp.data.NamedRegion;
+import uk.ac.ed.inf.ilp.data.Restaurant;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks FlightPath.findTotalPath from the drop-off location to each fixture restaurant,
+ * both planned from scratch and served from the route cache.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FlightPathBenchmark {
+    @Param({"0", "1", "2", "3", "4", "5", "6"})
+    public int restaurant;
+
+    private NamedRegion centralArea;
+    private NamedRegion[] noFlyZones;
+    private Restaurant target;
+    private FlightPath warmFlightPath;
+
+    @Setup
+    public void setUp() {
+        centralArea = Fixtures.centralArea();
+        noFlyZones = Fixtures.noFlyZones();
+        target = Fixtures.restaurants()[restaurant];
+        warmFlightPath = new FlightPath(noFlyZones, centralArea);
+        warmFlightPath.findTotalPath(target.location(), App.DROP_OFF_LOCATION, "WARM");
+    }
+
+    @Benchmark
+    public void findTotalPathCold(Blackhole blackhole) {
+        FlightPath flightPath = new FlightPath(noFlyZones, centralArea);
+        blackhole.consume(flightPath.findTotalPath(target.location(), App.DROP_OFF_LOCATION, "COLD"));
+    }
+
+    @Benchmark
+    public void findTotalPathCached(Blackhole blackhole) {
+        blackhole.consume(warmFlightPath.findTotalPath(target.location(), App.DROP_OFF_LOCATION, "WARM"));
+    }
+}
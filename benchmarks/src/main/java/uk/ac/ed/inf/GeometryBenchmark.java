@@ -0,0 +1,80 @@
+package uk.ac.ed.inf;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import uk.ac.ed.inf.ilp.data.LngLat;
+import uk.ac.ed.inf.ilp.data.NamedRegion;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the geometry checks that run for every candidate move.
+ * Each operation processes the same fixed set of random moves over the central area.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GeometryBenchmark {
+    private static final int MOVES = 1024;
+
+    private final LngLatHandler lngLatHandler = new LngLatHandler();
+    private NamedRegion centralArea;
+    private NamedRegion[] noFlyZones;
+    private NoFlyZoneIndex noFlyZoneIndex;
+    private LngLat[] starts;
+    private LngLat[] ends;
+    private double[] angles;
+
+    @Setup
+    public void setUp() {
+        centralArea = Fixtures.centralArea();
+        noFlyZones = Fixtures.noFlyZones();
+        noFlyZoneIndex = new NoFlyZoneIndex(noFlyZones);
+
+        Random random = new Random(1);
+        starts = new LngLat[MOVES];
+        ends = new LngLat[MOVES];
+        angles = new double[MOVES];
+        for (int i = 0; i < MOVES; i++) {
+            starts[i] = new LngLat(-3.1925 + random.nextDouble() * 0.0085, 55.9426 + random.nextDouble() * 0.0037);
+            angles[i] = random.nextInt(16) * 22.5;
+            ends[i] = lngLatHandler.nextPosition(starts[i], angles[i]);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MOVES)
+    public void nextPosition(Blackhole blackhole) {
+        for (int i = 0; i < MOVES; i++) {
+            blackhole.consume(lngLatHandler.nextPosition(starts[i], angles[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MOVES)
+    public void isInRegion(Blackhole blackhole) {
+        for (int i = 0; i < MOVES; i++) {
+            blackhole.consume(lngLatHandler.isInRegion(ends[i], centralArea));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MOVES)
+    public void pathGoesThroughNoFlyZones(Blackhole blackhole) {
+        for (int i = 0; i < MOVES; i++) {
+            blackhole.consume(lngLatHandler.pathGoesThroughNoFlyZones(starts[i], ends[i], noFlyZones));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MOVES)
+    public void pathGoesThroughNoFlyZonesIndexed(Blackhole blackhole) {
+        for (int i = 0; i < MOVES; i++) {
+            blackhole.consume(noFlyZoneIndex.pathGoesThroughNoFlyZones(starts[i], ends[i]));
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package uk.ac.ed.inf;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import uk.ac.ed.inf.ilp.data.Order;
+import uk.ac.ed.inf.ilp.data.Restaurant;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks OrderValidator.validateOrder over synthetic order sets of increasing size.
+ * Scores are for validating the whole set.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OrderValidatorBenchmark {
+    @Param({"100", "1000", "10000", "100000"})
+    public int orderCount;
+
+    private final OrderValidator validator = new OrderValidator();
+    private MenuIndex menuIndex;
+    private Order[] orders;
+
+    @Setup
+    public void setUp() {
+        Restaurant[] restaurants = Fixtures.restaurants();
+        menuIndex = new MenuIndex(restaurants);
+        orders = Fixtures.orders(restaurants, LocalDate.of(2023, 11, 15), orderCount, 2023);
+    }
+
+    @Benchmark
+    public void validateOrders(Blackhole blackhole) {
+        for (Order order : orders) {
+            blackhole.consume(validator.validateOrder(order, menuIndex));
+        }
+    }
+}
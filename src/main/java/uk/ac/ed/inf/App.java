@@ -1,12 +1,21 @@
 package uk.ac.ed.inf;
 
-import uk.ac.ed.inf.ilp.constant.OrderStatus;
 import uk.ac.ed.inf.ilp.data.*;
 
-import java.io.File;
-import java.io.FileWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
 import java.util.*;
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static uk.ac.ed.inf.ilp.constant.OrderStatus.DELIVERED;
 
@@ -16,11 +25,43 @@ import static uk.ac.ed.inf.ilp.constant.OrderStatus.DELIVERED;
  */
 public class App {
 
+    // Number of route planning threads, can be overridden with -Dpizzadronz.threads=N (1 plans serially).
+    static final int PLANNING_THREADS = Integer.getInteger("pizzadronz.threads", Runtime.getRuntime().availableProcessors());
+
+    // How long to wait for worker threads to stop once a run has failed.
+    private static final long STOP_SECONDS = 30;
+
+    // Precomputed route table loaded at startup, can be overridden with -Dpizzadronz.routeTable=FILE.
+    static final String ROUTE_TABLE_FILE = System.getProperty("pizzadronz.routeTable", "routetable.bin");
+
+    // Routes planned in earlier runs, can be overridden with -Dpizzadronz.routeStore=FILE.
+    static final String ROUTE_STORE_FILE = System.getProperty("pizzadronz.routeStore", "routestore.bin");
+
+    // Accepts plain http service URLs in main, for runs against a local stand-in server.
+    static final String ALLOW_HTTP_PROPERTY = "pizzadronz.allowHttp";
+
+    // Directory the result and metrics files are written to.
+    static final Path RESULT_DIR = Paths.get("./resultfiles");
+
+    // Writes result files, so blocking file I/O stays off the common pool; one date's three files are written at once.
+    private static final Executor RESULT_WRITERS = Executors.newFixedThreadPool(3, task -> {
+        Thread thread = new Thread(task, "result-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Appleton Tower, where every delivery starts and ends.
+    static final LngLat DROP_OFF_LOCATION = new LngLat(-3.186874, 55.944494);
+
     private final NamedRegion[] noFlyZones;
     private final NamedRegion centralArea;
     private final Restaurant[] restaurants;
+    private final MenuIndex menuIndex;
     private final List<Order> orders;
-    private final LngLat dropOffLocation = new LngLat(-3.186874, 55.944494);
+    private final RouteTable routeTable;
+    private final RouteCache routeCache;
+    private final RouteStore routeStore;
+    private final LngLat dropOffLocation = DROP_OFF_LOCATION;
 
     /**
      * @param noFlyZones  Array of NamedRegion objects representing no-fly zones.
@@ -29,34 +70,198 @@ public class App {
      * @param orders      List of orders to be delivered.
      */
     public App(NamedRegion[] noFlyZones, NamedRegion centralArea, Restaurant[] restaurants, List<Order> orders) {
+        this(noFlyZones, centralArea, restaurants, orders, null);
+    }
+
+    /**
+     * @param noFlyZones  Array of NamedRegion objects representing no-fly zones.
+     * @param centralArea The central area of operation as a NamedRegion object.
+     * @param restaurants Array of Restaurant objects available for picking up orders.
+     * @param orders      List of orders to be delivered.
+     * @param routeTable  Precomputed routes for these regions, or null to plan every route.
+     */
+    public App(NamedRegion[] noFlyZones, NamedRegion centralArea, Restaurant[] restaurants, List<Order> orders, RouteTable routeTable) {
+        this(noFlyZones, centralArea, restaurants, orders, routeTable, new RouteCache());
+    }
+
+    /**
+     * @param noFlyZones  Array of NamedRegion objects representing no-fly zones.
+     * @param centralArea The central area of operation as a NamedRegion object.
+     * @param restaurants Array of Restaurant objects available for picking up orders.
+     * @param orders      List of orders to be delivered.
+     * @param routeTable  Precomputed routes for these regions, or null to plan every route.
+     * @param routeCache  Cache for planned routes, which may be shared with other Apps in the same process.
+     */
+    public App(NamedRegion[] noFlyZones, NamedRegion centralArea, Restaurant[] restaurants, List<Order> orders, RouteTable routeTable,
+               RouteCache routeCache) {
+        this(noFlyZones, centralArea, new MenuIndex(restaurants), orders, routeTable, routeCache, null);
+    }
+
+    /**
+     * @param noFlyZones  Array of NamedRegion objects representing no-fly zones.
+     * @param centralArea The central area of operation as a NamedRegion object.
+     * @param menuIndex   Index of the restaurants available for picking up orders, which may be the
+     *                    one the orders were validated with.
+     * @param orders      List of orders to be delivered.
+     * @param routeTable  Precomputed routes for these regions, or null to plan every route.
+     * @param routeCache  Cache for planned routes, which may be shared with other Apps in the same process.
+     * @param routeStore  Routes kept on disk between runs for these regions, or null to keep none.
+     */
+    public App(NamedRegion[] noFlyZones, NamedRegion centralArea, MenuIndex menuIndex, List<Order> orders, RouteTable routeTable,
+               RouteCache routeCache, RouteStore routeStore) {
         this.noFlyZones = noFlyZones;
         this.centralArea = centralArea;
-        this.restaurants = restaurants;
+        this.restaurants = menuIndex.getRestaurants();
+        this.menuIndex = menuIndex;
         this.orders = orders;
+        this.routeTable = routeTable;
+        this.routeCache = routeCache;
+        this.routeStore = routeStore;
     }
 
     /**
-     * Calculates the routes for drone deliveries.
+     * Calculates the routes for drone deliveries using the configured number of planning threads.
      *
      * @return List of Nodes representing the calculated paths.
      */
     public List<Node> routeCalculator() {
-        FlightPath pathCalculator = new FlightPath(noFlyZones, centralArea);
-        List<Node> paths = new ArrayList<>();
+        return routeCalculator(PLANNING_THREADS);
+    }
 
-        for (Order order : orders) {
-            try {
-                LngLat restaurantLoc = getRestaurantLocation(order);
-                List<Node> path = pathCalculator.findTotalPath(restaurantLoc, dropOffLocation, order.getOrderNo());
-                paths.addAll(path);
-                order.setOrderStatus(DELIVERED);
-            } catch (RestaurantNotFoundException e) {
-                System.err.println(e.getMessage());
+    /**
+     * Calculates the routes for drone deliveries as Nodes.
+     *
+     * @param threads Number of threads to plan routes with; 1 or less plans serially.
+     * @return List of Nodes representing the calculated paths.
+     * @see #routeBuffer(int)
+     */
+    public List<Node> routeCalculator(int threads) {
+        return routeBuffer(threads).toNodes();
+    }
+
+    /**
+     * Calculates the routes for drone deliveries using the configured number of planning threads.
+     *
+     * @return The calculated paths.
+     */
+    public FlightPathBuffer routeBuffer() {
+        return routeBuffer(PLANNING_THREADS);
+    }
+
+    /**
+     * Calculates the routes for drone deliveries. Routes are planned concurrently when more than one
+     * thread is requested, and are stitched back together in the original order sequence, so the
+     * result is identical to a serial run.
+     *
+     * @param threads Number of threads to plan routes with; 1 or less plans serially.
+     * @return The calculated paths.
+     */
+    public FlightPathBuffer routeBuffer(int threads) {
+        FlightPath pathCalculator = createPathCalculator();
+        FlightPathBuffer paths = new FlightPathBuffer();
+
+        if (threads <= 1) {
+            for (Order order : orders) {
+                try {
+                    paths.addAll(planRoute(pathCalculator, order));
+                    order.setOrderStatus(DELIVERED);
+                } catch (RestaurantNotFoundException e) {
+                    Log.warn(e.getMessage());
+                }
+            }
+            return paths;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<FlightPathBuffer>> plannedRoutes = new ArrayList<>(orders.size());
+            for (Order order : orders) {
+                plannedRoutes.add(executor.submit(() -> planRoute(pathCalculator, order)));
             }
+
+            // Collects the routes in order sequence; statuses are only updated on this thread.
+            for (int i = 0; i < orders.size(); i++) {
+                try {
+                    paths.addAll(plannedRoutes.get(i).get());
+                    orders.get(i).setOrderStatus(DELIVERED);
+                } catch (ExecutionException e) {
+                    if (!(e.getCause() instanceof RestaurantNotFoundException)) {
+                        throw new IllegalStateException("Route planning failed", e.getCause());
+                    }
+                    Log.warn(e.getCause().getMessage());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Route planning was interrupted", e);
+        } finally {
+            stopAndWait(executor);
         }
         return paths;
     }
 
+    /**
+     * Interrupts an executor's tasks and waits for them to finish, so none is still planning routes
+     * or writing files once the caller has moved on. Returns at once if every task has finished.
+     *
+     * @param executor The executor to stop.
+     */
+    static void stopAndWait(ExecutorService executor) {
+        executor.shutdownNow();
+        try {
+            if (!executor.awaitTermination(STOP_SECONDS, TimeUnit.SECONDS)) {
+                Log.warn("Worker threads did not stop within " + STOP_SECONDS + " seconds");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Creates the FlightPath used to plan this App's routes, with the route table preloaded.
+     *
+     * @return The FlightPath, which may be shared by several planning threads.
+     */
+    FlightPath createPathCalculator() {
+        FlightPath pathCalculator = new FlightPath(noFlyZones, centralArea, routeCache, routeStore);
+        if (routeTable != null) {
+            routeTable.preload(pathCalculator);
+        }
+        return pathCalculator;
+    }
+
+    /**
+     * Plans the route for a single order, reporting orders whose restaurant cannot be found.
+     * The order's status is not changed.
+     *
+     * @param pathCalculator The shared FlightPath used to plan and cache routes.
+     * @param order The order to plan the route for.
+     * @return The route for this order, or null if no suitable restaurant is found.
+     */
+    FlightPathBuffer planDelivery(FlightPath pathCalculator, Order order) {
+        try {
+            return planRoute(pathCalculator, order);
+        } catch (RestaurantNotFoundException e) {
+            Log.warn(e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Plans the route for a single order.
+     *
+     * @param pathCalculator The shared FlightPath used to plan and cache routes.
+     * @param order The order to plan the route for.
+     * @return The route for this order.
+     * @throws RestaurantNotFoundException if no suitable restaurant is found for the order.
+     */
+    private FlightPathBuffer planRoute(FlightPath pathCalculator, Order order) throws RestaurantNotFoundException {
+        LngLat restaurantLoc = getRestaurantLocation(order);
+        FlightPathBuffer route = new FlightPathBuffer();
+        pathCalculator.appendTotalPath(restaurantLoc, dropOffLocation, order.getOrderNo(), route);
+        return route;
+    }
+
     /**
      * Retrieves the location of the restaurant for a given order.
      *
@@ -66,12 +271,9 @@ public class App {
      */
 
     private LngLat getRestaurantLocation(Order order) throws RestaurantNotFoundException {
-        Set<Pizza> pizzasInOrder = new HashSet<>(Arrays.asList(order.getPizzasInOrder()));
-        for (Restaurant restaurant : restaurants) {
-            Set<Pizza> menuSet = new HashSet<>(Arrays.asList(restaurant.menu()));
-            if (menuSet.containsAll(pizzasInOrder)) {
-                return restaurant.location();
-            }
+        int restaurant = menuIndex.findRestaurant(order.getPizzasInOrder());
+        if (restaurant >= 0) {
+            return restaurants[restaurant].location();
         }
         throw new RestaurantNotFoundException("Restaurant not found for order: " + order.getOrderNo());
     }
@@ -86,109 +288,315 @@ public class App {
     /**
      * Validates the command-line arguments provided to the application.
      *
-     * @param args The command-line arguments.
+     * @param args      The command-line arguments.
+     * @param allowHttp Whether a plain http URL is accepted as well as https.
      * @throws IllegalArgumentException if the number of arguments is incorrect or if they don't match the expected format.
      */
-    private static void validateArguments(String[] args) {
-        // Ensure exactly two arguments are provided
-        if (args.length != 2) {
-            throw new IllegalArgumentException("Incorrect number of arguments. Expected 2 arguments: date and URL");
+    private static void validateArguments(String[] args, boolean allowHttp) {
+        // Ensure two arguments are provided, or three for a range of dates
+        if (args.length != 2 && args.length != 3) {
+            throw new IllegalArgumentException("Incorrect number of arguments. Expected 2 arguments: date and URL, or 3: first date, last date and URL");
         }
 
 
-        String date = args[0];
-        String url = args[1];
+        String url = args[args.length - 1];
 
         // Validate date format
-        if (!date.matches("\\d{4}-\\d{2}-\\d{2}")) {
-            throw new IllegalArgumentException("Date must be in the format YYYY-MM-DD");
+        for (int i = 0; i < args.length - 1; i++) {
+            if (!args[i].matches("\\d{4}-\\d{2}-\\d{2}")) {
+                throw new IllegalArgumentException("Date must be in the format YYYY-MM-DD");
+            }
         }
 
-        // Validate URL format
-        if (!url.matches("https://.*")) {
+        // Validate URL format; plain http is only allowed for a local stand-in server
+        if (!url.matches("https://.*") && !(allowHttp && url.matches("http://.*"))) {
             throw new IllegalArgumentException("URL must start with https://");
         }
     }
 
     /**
-     * Main method to run the application.
+     * Main method to run the application. Plain http URLs are accepted when
+     * -Dpizzadronz.allowHttp=true is set.
      *
-     * @param args Command-line arguments: date and URL.
+     * @param args Command-line arguments: date and URL, or first date, last date and URL to plan
+     *             every date in the range.
      */
     public static void main(String[] args) {
         try {
-            validateArguments(args);
-            String date = args[0];
-            String url = args[1];
-
-            // Check if the remote service is alive
-            String serviceStatus = RestService.isAlive(url);
-            if (!serviceStatus.equals("true")) {
-                throw new IllegalStateException("Service is not alive");
+            run(args, Boolean.getBoolean(ALLOW_HTTP_PROPERTY), RESULT_DIR);
+        } catch (IllegalArgumentException e) {
+            // Handle the IllegalArgumentException here
+            Log.error("Invalid arguments: " + e.getMessage());
+            // Optionally, print a usage message or exit the application gracefully
+        } catch (Exception e) {
+            // Log the stack trace in case of other exceptions
+            Log.error("Planning failed", e);
+        }
+    }
+
+    /**
+     * Plans the dates given on the command line and writes their result and metrics files.
+     *
+     * @param args      Command-line arguments, as for main.
+     * @param allowHttp Whether a plain http URL is accepted as well as https.
+     * @param resultDir The directory to write the files to.
+     * @throws IllegalArgumentException if the arguments are invalid.
+     * @throws IOException              if the service cannot be reached or a file cannot be written.
+     * @throws InterruptedException     if the thread is interrupted while waiting.
+     */
+    static void run(String[] args, boolean allowHttp, Path resultDir) throws IOException, InterruptedException {
+        validateArguments(args, allowHttp);
+        if (args.length == 3) {
+            List<String> dates = new ArrayList<>();
+            LocalDate last = LocalDate.parse(args[1]);
+            for (LocalDate day = LocalDate.parse(args[0]); !day.isAfter(last); day = day.plusDays(1)) {
+                dates.add(day.toString());
+            }
+            if (dates.isEmpty()) {
+                throw new IllegalArgumentException("First date must not be after the last date");
             }
+            Log.info(planDates(args[2], dates, resultDir).toString());
+            writeMetrics(resultDir, args[0] + "_" + args[1]);
+            return;
+        }
+        String date = args[0];
+        String url = args[1];
 
-            // Retrieve data from the remote service
-            Restaurant[] restaurants = RestService.restResaurant(url);
-            Order[] orders = RestService.restOrder(url, date);
-            NamedRegion centralArea = RestService.restCentralArea(url);
-            NamedRegion[] noFlyZones = RestService.restNoFlyZone(url);
+        // Stream the orders through validation, planning and output as they arrive
+        DeliveryPipeline pipeline = new DeliveryPipeline(url, resultDir);
+        Log.info("Planned " + pipeline.run(date) + " queues=" + pipeline.getQueueStats());
+        writeMetrics(resultDir, date);
+    }
 
-            // Validate orders
-            OrderValidator validator = new OrderValidator();
-            List<Order> validOrders = new ArrayList<>();
-            for (Order order : orders) {
-                if (validator.validateOrder(order, restaurants).getOrderStatus() != OrderStatus.INVALID) {
-                    validOrders.add(order);
-                }
+    /**
+     * Plans several dates in one run. The restaurants and regions are fetched once, alongside the
+     * orders for every date. The dates are then validated, planned and written in parallel, sharing
+     * one route cache and route store, each stage finishing before the next starts.
+     *
+     * @param url       The base URL of the REST service.
+     * @param dates     The dates to plan, in the format YYYY-MM-DD.
+     * @param resultDir The directory to write the result files to.
+     * @return The time taken by each stage.
+     * @throws IOException          if the service cannot be reached or a file cannot be written.
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    static BatchTimings planDates(String url, List<String> dates, Path resultDir) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+
+        // Fetch the reference data and every date's orders concurrently
+        RestService.BatchData data = RestService.fetchAll(url, dates);
+        MenuIndex menuIndex = new MenuIndex(data.restaurants());
+        NamedRegion centralArea = data.centralArea();
+        NamedRegion[] noFlyZones = data.noFlyZones();
+        List<Order[]> orders = data.orders();
+        long fetched = System.nanoTime();
+
+        RouteCache routeCache = new RouteCache();
+        List<List<Order>> validOrders = new ArrayList<>(Collections.nCopies(dates.size(), null));
+        FlightPathBuffer[] paths = new FlightPathBuffer[dates.size()];
+        long validated, planned;
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(PLANNING_THREADS, dates.size())));
+        try {
+            forEachDate(executor, dates.size(), i -> validOrders.set(i, validateOrders(orders.get(i), menuIndex)));
+            validated = System.nanoTime();
+
+            // Dates are planned in parallel, so each one plans its own orders serially
+            try (PlanningContext context = PlanningContext.open(noFlyZones, centralArea, routeCache)) {
+                forEachDate(executor, dates.size(), i -> paths[i] = context.newApp(menuIndex, validOrders.get(i)).routeBuffer(1));
             }
+            planned = System.nanoTime();
 
-            // Calculate the flight paths for the drone
-            App app = new App(noFlyZones, centralArea, restaurants, validOrders);
-            List<Node> paths = app.routeCalculator();
+            forEachDate(executor, dates.size(), i -> writeResultFiles(resultDir, dates.get(i), orders.get(i), paths[i]));
+        } finally {
+            stopAndWait(executor);
+        }
+        long written = System.nanoTime();
+
+        return new BatchTimings(dates.size(), (fetched - start) / 1_000_000, (validated - fetched) / 1_000_000,
+                (planned - validated) / 1_000_000, (written - planned) / 1_000_000, (written - start) / 1_000_000);
+    }
+
+    /**
+     * Time taken by each stage of a multi-date run, in milliseconds.
+     *
+     * @param dates    The number of dates planned.
+     * @param fetch    Fetching the reference data and orders.
+     * @param validate Validating the orders.
+     * @param plan     Planning the flight paths, including loading the route table and opening the route store.
+     * @param write    Writing the result files.
+     * @param total    The whole run.
+     */
+    record BatchTimings(int dates, long fetch, long validate, long plan, long write, long total) {
+        @Override
+        public String toString() {
+            return "Planned " + dates + " dates: fetch=" + fetch + "ms validate=" + validate + "ms plan=" + plan
+                    + "ms write=" + write + "ms total=" + total + "ms";
+        }
+    }
+
+    // A stage of work for one date, given its index.
+    private interface DateTask {
+        void run(int date) throws Exception;
+    }
+
+    /**
+     * Runs a task for every date on the executor and waits for all of them.
+     *
+     * @param executor The executor to run the tasks on.
+     * @param dates    The number of dates.
+     * @param task     The task to run for each date index.
+     * @throws IOException          if a task fails with an I/O error.
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    private static void forEachDate(ExecutorService executor, int dates, DateTask task) throws IOException, InterruptedException {
+        List<Future<?>> results = new ArrayList<>(dates);
+        for (int i = 0; i < dates; i++) {
+            int date = i;
+            results.add(executor.submit(() -> {
+                task.run(date);
+                return null;
+            }));
+        }
+        boolean done = false;
+        try {
+            for (Future<?> result : results) {
+                try {
+                    result.get();
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof IOException cause) {
+                        throw cause;
+                    }
+                    throw new IllegalStateException("Planning a date failed", e.getCause());
+                }
+            }
+            done = true;
+        } finally {
+            if (!done) {
+                // Stop the other dates before the caller closes the routes they are using
+                stopAndWait(executor);
+            }
+        }
+    }
 
-            // Extract date components for file naming
-            String year = date.substring(0, 4);
-            String month = date.substring(5, 7);
-            String day = date.substring(8, 10);
+    /**
+     * Waits for a request to the REST service.
+     *
+     * @param request The request.
+     * @return Its result.
+     * @throws IOException          if the request failed.
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    static <T> T await(CompletableFuture<T> request) throws IOException, InterruptedException {
+        try {
+            return request.get();
+        } catch (ExecutionException e) {
+            throw RestService.unwrap(e.getCause());
+        }
+    }
 
-            // Create directory for result files
-            new File("../resultfiles").mkdir();
+    /**
+     * Validates orders and keeps those that can be delivered.
+     *
+     * @param orders      The orders to validate; their status and validation code are updated.
+     * @param menuIndex   Index of the restaurants the orders may come from.
+     * @return List of the orders that are not invalid.
+     */
+    static List<Order> validateOrders(Order[] orders, MenuIndex menuIndex) {
+        return new OrderValidator().validateAll(orders, menuIndex).getValidOrders();
+    }
 
-            // Generate and write delivery information to a file
-            String deliveriesFile = "./resultfiles/deliveries-" + year + "-" + month + "-" + day + ".json";
-            writeFile(deliveriesFile, FileOutputter.writeDeliveryJson(date, orders));
-            System.out.println("Delivery file generated: " + deliveriesFile);
+    /**
+     * Writes the delivery, flight path and drone files for a date, all three at the same time.
+     *
+     * @param dir    The directory to write the files to.
+     * @param date   The date the orders are for, in the format YYYY-MM-DD.
+     * @param orders All orders for the date.
+     * @param paths  The flight paths of the delivered orders.
+     * @throws IOException          if an I/O error occurs.
+     * @throws InterruptedException if the thread is interrupted while waiting for the files.
+     */
+    static void writeResultFiles(Path dir, String date, Order[] orders, FlightPathBuffer paths) throws IOException, InterruptedException {
+        ResultFiles files = ResultFiles.forDate(dir, date);
 
-            // Generate and write flight path information to a file
-            String flightpathFile = "./resultfiles/flightpath-" + year + "-" + month + "-" + day + ".json";
-            writeFile(flightpathFile, FileOutputter.writeFlightpathJson(paths));
-            System.out.println("Flightpath file generated: " + flightpathFile);
+        // Generate and write delivery, flight path and drone geo-location information to their files
+        CompletableFuture<Void> deliveries = writeAsync(() -> writeFile(files.deliveries(), FileOutputter.writeDeliveryJson(date, orders)));
+        CompletableFuture<Void> flightpath = writeAsync(() -> FileOutputter.writeFlightpathJson(paths, Paths.get(files.flightpath())));
+        CompletableFuture<Void> drone = writeAsync(() -> FileOutputter.writeGeoJson(paths, Paths.get(files.drone())));
 
-            // Generate and write drone geo-location information to a file
-            String droneFile = "./resultfiles/drone-" + year + "-" + month + "-" + day + ".geojson";
-            writeFile(droneFile, FileOutputter.writeGeoJson(paths));
-            System.out.println("Drone GeoJSON file generated: " + droneFile);
+        // Wait for every file, even once one has failed, so no write is left running or unreported
+        await(CompletableFuture.allOf(deliveries, flightpath, drone));
+        Log.info("Delivery file generated: " + files.deliveries());
+        Log.info("Flightpath file generated: " + files.flightpath());
+        Log.info("Drone GeoJSON file generated: " + files.drone());
+    }
 
-        } catch (IllegalArgumentException e) {
-            // Handle the IllegalArgumentException here
-            System.err.println("Invalid arguments: " + e.getMessage());
-            // Optionally, print a usage message or exit the application gracefully
-        } catch (Exception e) {
-            // Print the stack trace in case of other exceptions
-            e.printStackTrace();
+    /**
+     * The names of the result files for a date.
+     *
+     * @param flightpath The flight path file, compressed if output compression is on.
+     * @param drone      The drone GeoJSON file, compressed if output compression is on.
+     * @param deliveries The deliveries file.
+     */
+    record ResultFiles(String flightpath, String drone, String deliveries) {
+        /**
+         * Names the result files for a date and creates the directory they are written to.
+         *
+         * @param dir  The directory to write the files to.
+         * @param date The date, in the format YYYY-MM-DD.
+         * @return The names of the files.
+         * @throws IOException if the directory cannot be created.
+         */
+        static ResultFiles forDate(Path dir, String date) throws IOException {
+            Files.createDirectories(dir);
+            return new ResultFiles(FileOutputter.outputName(dir.resolve("flightpath-" + date + ".json").toString()),
+                    FileOutputter.outputName(dir.resolve("drone-" + date + ".geojson").toString()),
+                    dir.resolve("deliveries-" + date + ".json").toString());
         }
     }
 
+    private interface FileTask {
+        void write() throws IOException;
+    }
+
     /**
-     * Writes content to a file at the specified file path.
+     * Writes a file on the result writer threads.
+     *
+     * @param task Writes the file.
+     * @return Completes when the file is written, or with the task's IOException.
+     */
+    private static CompletableFuture<Void> writeAsync(FileTask task) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                task.write();
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, RESULT_WRITERS);
+    }
+
+    /**
+     * Writes the metrics gathered during the run next to the result files.
+     *
+     * @param dir The directory the result files are written to.
+     * @param run The date or dates planned, used in the file name.
+     * @throws IOException if an I/O error occurs.
+     */
+    private static void writeMetrics(Path dir, String run) throws IOException {
+        Path metricsFile = dir.resolve("metrics-" + run + ".json");
+        Metrics.writeJson(metricsFile);
+        Log.info("Metrics file generated: " + metricsFile);
+    }
+
+    /**
+     * Writes content to a file at the specified file path, in UTF-8.
+     * The file is replaced only once the new content is complete.
      *
      * @param filePath The file path where the content will be written.
      * @param content  The content to write to the file.
      * @throws IOException if an I/O error occurs.
      */
-    private static void writeFile(String filePath, String content) throws IOException {
-        try (FileWriter fileWriter = new FileWriter(filePath)) {
-            fileWriter.write(content);
-        }
+    static void writeFile(String filePath, String content) throws IOException {
+        ResultFile.write(Paths.get(filePath), content);
     }
 }
\ No newline at end of file
@@ -0,0 +1,99 @@
+package uk.ac.ed.inf;
+
+import uk.ac.ed.inf.ilp.data.LngLat;
+import uk.ac.ed.inf.ilp.data.NamedRegion;
+
+/**
+ * Precompiled form of a NamedRegion for fast point-in-region checks: the vertices as flat
+ * coordinate arrays and the bounding box of the region.
+ * Points inside the bounding box are checked with the same ray-casting algorithm as
+ * LngLatHandler.isInRegion, so both give the same answers.
+ */
+public final class CompiledRegion {
+    // End of the test ray, far to the east of any region.
+    private static final double RAY_END_LNG = 9999.99;
+
+    private final NamedRegion region;
+    private final double[] lngs;
+    private final double[] lats;
+    private final double minLng;
+    private final double minLat;
+    private final double maxLng;
+    private final double maxLat;
+
+    /**
+     * Compiles the given region.
+     *
+     * @param region The region defined by its vertices.
+     */
+    public CompiledRegion(NamedRegion region) {
+        this.region = region;
+        LngLat[] vertices = region.vertices();
+        int n = vertices.length;
+        lngs = new double[n];
+        lats = new double[n];
+        double lowLng = Double.MAX_VALUE, lowLat = Double.MAX_VALUE;
+        double highLng = -Double.MAX_VALUE, highLat = -Double.MAX_VALUE;
+        for (int i = 0; i < n; i++) {
+            lngs[i] = vertices[i].lng();
+            lats[i] = vertices[i].lat();
+            lowLng = Math.min(lowLng, lngs[i]);
+            lowLat = Math.min(lowLat, lats[i]);
+            highLng = Math.max(highLng, lngs[i]);
+            highLat = Math.max(highLat, lats[i]);
+        }
+        minLng = lowLng;
+        minLat = lowLat;
+        maxLng = highLng;
+        maxLat = highLat;
+    }
+
+    /**
+     * @return The region this was compiled from.
+     */
+    public NamedRegion getRegion() {
+        return region;
+    }
+
+    /**
+     * Determines whether a given position is inside the region, including its boundary.
+     *
+     * @param position The position to check.
+     * @return true if the position is inside the region; false otherwise.
+     */
+    public boolean contains(LngLat position) {
+        return contains(position.lng(), position.lat());
+    }
+
+    /**
+     * Determines whether a given position is inside the region, including its boundary.
+     *
+     * @param lng Longitude of the position.
+     * @param lat Latitude of the position.
+     * @return true if the position is inside the region; false otherwise.
+     */
+    public boolean contains(double lng, double lat) {
+        int n = lngs.length;
+        if (n < 3 || lng < minLng || lng > maxLng || lat < minLat || lat > maxLat) {
+            return false;
+        }
+
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            int next = i + 1 == n ? 0 : i + 1;
+            double startLat = lats[i], endLat = lats[next];
+            // The ray is horizontal, so an edge entirely above or below it can never meet it.
+            if ((startLat > lat && endLat > lat) || (startLat < lat && endLat < lat)) {
+                continue;
+            }
+            double startLng = lngs[i], endLng = lngs[next];
+            if (LngLatHandler.doIntersect(startLng, startLat, endLng, endLat, lng, lat, RAY_END_LNG, lat)) {
+                if (LngLatHandler.orientation(startLng, startLat, lng, lat, endLng, endLat) == 0) {
+                    return LngLatHandler.onSegment(startLng, startLat, lng, lat, endLng, endLat);
+                }
+                count++;
+            }
+        }
+        return (count & 1) == 1;
+    }
+}
@@ -0,0 +1,352 @@
+package uk.ac.ed.inf;
+
+import uk.ac.ed.inf.ilp.constant.OrderStatus;
+import uk.ac.ed.inf.ilp.data.NamedRegion;
+import uk.ac.ed.inf.ilp.data.Order;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static uk.ac.ed.inf.ilp.constant.OrderStatus.DELIVERED;
+
+/**
+ * Plans one date's deliveries as a pipeline of stages joined by bounded queues, so each stage starts
+ * on the first order instead of waiting for the previous stage to finish. Orders are streamed from
+ * the REST service to a validator, valid orders go to several planning workers, and planned routes
+ * go to a writer that streams them to the flight path and GeoJSON files in order sequence. The
+ * deliveries file is written last, once every order's status is known.
+ * <p>
+ * A full queue blocks the stage feeding it, so a slow stage holds back the ones before it instead of
+ * letting orders pile up. The depth of each queue and the time spent blocked on it can be read while
+ * the pipeline runs. The depths are also sampled while it runs and logged at DEBUG, so the stats
+ * kept after a run show how full each queue was on average, not just that it is now empty.
+ */
+public class DeliveryPipeline {
+
+    // Capacity of each queue between stages, can be overridden with -Dpizzadronz.queueCapacity=N.
+    private static final int QUEUE_CAPACITY = Integer.getInteger("pizzadronz.queueCapacity", 64);
+
+    // How often the queue depths are sampled while the pipeline runs.
+    private static final long SAMPLE_MILLIS = 10;
+
+    /**
+     * The stages that take their input from a queue.
+     */
+    public enum Stage { VALIDATE, PLAN, WRITE }
+
+    // An order passing through the pipeline, with its place among the valid orders and its route once planned.
+    private record Item(int sequence, Order order, FlightPathBuffer route) {
+    }
+
+    // Tells a stage that there is no more input.
+    private static final Item END = new Item(-1, null, null);
+
+    private final String url;
+    private final Path resultDir;
+    private final int planners;
+    private final Map<Stage, StageQueue> queues = new EnumMap<>(Stage.class);
+
+    /**
+     * @param url       The base URL of the REST service.
+     * @param resultDir The directory to write the result files to.
+     */
+    public DeliveryPipeline(String url, Path resultDir) {
+        this(url, resultDir, App.PLANNING_THREADS, QUEUE_CAPACITY);
+    }
+
+    /**
+     * Writes the result files to the default result directory.
+     *
+     * @param url      The base URL of the REST service.
+     * @param planners The number of planning workers.
+     * @param capacity The capacity of each queue between stages.
+     */
+    public DeliveryPipeline(String url, int planners, int capacity) {
+        this(url, App.RESULT_DIR, planners, capacity);
+    }
+
+    /**
+     * @param url       The base URL of the REST service.
+     * @param resultDir The directory to write the result files to.
+     * @param planners  The number of planning workers.
+     * @param capacity  The capacity of each queue between stages.
+     */
+    public DeliveryPipeline(String url, Path resultDir, int planners, int capacity) {
+        if (planners < 1 || capacity < 1) {
+            throw new IllegalArgumentException("Planners and queue capacity must be positive");
+        }
+        this.url = url;
+        this.resultDir = resultDir;
+        this.planners = planners;
+        for (Stage stage : Stage.values()) {
+            queues.put(stage, new StageQueue(capacity));
+        }
+    }
+
+    /**
+     * Plans the deliveries for a date and writes its result files.
+     * A pipeline runs one date at a time.
+     *
+     * @param date The date to plan, in the format YYYY-MM-DD.
+     * @return A summary of the run.
+     * @throws IOException          if the service cannot be reached or a file cannot be written.
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    public synchronized Result run(String date) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        for (StageQueue queue : queues.values()) {
+            queue.reset();
+        }
+        StageQueue toValidate = queues.get(Stage.VALIDATE);
+        StageQueue toPlan = queues.get(Stage.PLAN);
+        StageQueue toWrite = queues.get(Stage.WRITE);
+
+        CompletableFuture<String> alive = RestService.isAliveAsync(url);
+        CompletableFuture<MenuIndex> menuIndexRequest = RestService.restResaurantAsync(url).thenApply(MenuIndex::new);
+        CompletableFuture<NamedRegion> centralAreaRequest = RestService.restCentralAreaAsync(url);
+        CompletableFuture<NamedRegion[]> noFlyZonesRequest = RestService.restNoFlyZoneAsync(url);
+
+        App.ResultFiles files = App.ResultFiles.forDate(resultDir, date);
+
+        List<Order> orders = new ArrayList<>();
+        AtomicInteger valid = new AtomicInteger();
+        AtomicInteger moves = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(planners + 3);
+        CompletionService<Void> stages = new ExecutorCompletionService<>(executor);
+        int running = 0;
+        try {
+            // Fetch: stream orders from the service as they are parsed
+            stages.submit(() -> {
+                if (!App.await(alive).equals("true")) {
+                    throw new IllegalStateException("Service is not alive");
+                }
+                RestService.streamOrders(url, date, order -> toValidate.put(new Item(0, order, null)));
+                toValidate.put(END);
+                return null;
+            });
+
+            // Validate: number the valid orders so the writer can restore their sequence
+            stages.submit(() -> {
+                MenuIndex menuIndex = App.await(menuIndexRequest);
+                OrderValidator validator = new OrderValidator();
+                for (Item item = toValidate.take(); item != END; item = toValidate.take()) {
+                    orders.add(item.order());
+                    if (validator.validateOrder(item.order(), menuIndex).getOrderStatus() != OrderStatus.INVALID) {
+                        toPlan.put(new Item(valid.getAndIncrement(), item.order(), null));
+                    }
+                }
+                for (int i = 0; i < planners; i++) {
+                    toPlan.put(END);
+                }
+                return null;
+            });
+            running += 2;
+
+            // The planners need the regions, route table and route store, loaded while orders arrive
+            MenuIndex menuIndex = App.await(menuIndexRequest);
+            NamedRegion centralArea = App.await(centralAreaRequest);
+            NamedRegion[] noFlyZones = App.await(noFlyZonesRequest);
+
+            try (PlanningContext context = PlanningContext.open(noFlyZones, centralArea, new RouteCache())) {
+                App app = context.newApp(menuIndex, List.of());
+                FlightPath pathCalculator = app.createPathCalculator();
+
+                // Plan: any number of workers, each passing its routes on as soon as they are planned
+                for (int i = 0; i < planners; i++) {
+                    stages.submit(() -> {
+                        for (Item item = toPlan.take(); item != END; item = toPlan.take()) {
+                            toWrite.put(new Item(item.sequence(), item.order(), app.planDelivery(pathCalculator, item.order())));
+                        }
+                        toWrite.put(END);
+                        return null;
+                    });
+                }
+
+                // Write: hold back routes that arrive early until the ones before them are written
+                stages.submit(() -> {
+                    try (FileOutputter.RouteWriter writer = FileOutputter.openRouteWriter(Paths.get(files.flightpath()), Paths.get(files.drone()))) {
+                        Map<Integer, Item> early = new HashMap<>();
+                        int next = 0;
+                        for (int finished = 0; finished < planners; ) {
+                            Item item = toWrite.take();
+                            if (item == END) {
+                                finished++;
+                                continue;
+                            }
+                            early.put(item.sequence(), item);
+                            for (Item ready = early.remove(next); ready != null; ready = early.remove(++next)) {
+                                if (ready.route() != null) {
+                                    writer.append(ready.route());
+                                    ready.order().setOrderStatus(DELIVERED);
+                                }
+                            }
+                        }
+                        writer.finish();
+                        moves.set(writer.getMoveCount());
+                    }
+                    return null;
+                });
+                running += planners + 1;
+
+                try {
+                    while (running > 0) {
+                        Future<Void> finished = stages.poll(SAMPLE_MILLIS, TimeUnit.MILLISECONDS);
+                        if (finished == null) {
+                            sampleDepths();
+                            continue;
+                        }
+                        running--;
+                        try {
+                            finished.get();
+                        } catch (ExecutionException e) {
+                            if (e.getCause() instanceof IOException cause) {
+                                throw cause;
+                            }
+                            throw new IllegalStateException("Delivery pipeline failed", e.getCause());
+                        }
+                    }
+                } finally {
+                    // Stop the planners before the route store they use is closed
+                    App.stopAndWait(executor);
+                }
+            }
+        } finally {
+            App.stopAndWait(executor);
+        }
+        Log.info("Flightpath file generated: " + files.flightpath());
+        Log.info("Drone GeoJSON file generated: " + files.drone());
+
+        Order[] allOrders = orders.toArray(new Order[0]);
+        App.writeFile(files.deliveries(), FileOutputter.writeDeliveryJson(date, allOrders));
+        Log.info("Delivery file generated: " + files.deliveries());
+
+        return new Result(date, allOrders.length, valid.get(), moves.get(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // Records the depth of every queue and logs them.
+    private void sampleDepths() {
+        for (StageQueue queue : queues.values()) {
+            queue.sample();
+        }
+        Log.debug(() -> "Queue depths " + getQueueStats());
+    }
+
+    /**
+     * @return The current depth of each queue, its mean and greatest depth during the current run,
+     * and how long the stage feeding it has been blocked because it was full.
+     */
+    public Map<Stage, QueueStats> getQueueStats() {
+        Map<Stage, QueueStats> stats = new EnumMap<>(Stage.class);
+        queues.forEach((stage, queue) -> stats.put(stage, queue.stats()));
+        return stats;
+    }
+
+    /**
+     * Activity of the queue in front of a stage.
+     *
+     * @param depth         Items waiting in the queue now.
+     * @param meanDepth     Items waiting in it on average, sampled while the pipeline ran.
+     * @param maxDepth      The most items that have waited in it at once.
+     * @param blockedMillis Time the previous stage has spent waiting for room in the queue.
+     */
+    public record QueueStats(int depth, double meanDepth, int maxDepth, long blockedMillis) {
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "depth=%d mean=%.1f max=%d blockedMs=%d", depth, meanDepth, maxDepth, blockedMillis);
+        }
+    }
+
+    /**
+     * Summary of a pipeline run.
+     *
+     * @param date   The date planned.
+     * @param orders The number of orders fetched.
+     * @param valid  The number of orders that were not invalid.
+     * @param moves  The number of moves in the flight path.
+     * @param millis Time taken, in milliseconds.
+     */
+    public record Result(String date, int orders, int valid, int moves, long millis) {
+        @Override
+        public String toString() {
+            return date + " orders=" + orders + " valid=" + valid + " moves=" + moves + " ms=" + millis;
+        }
+    }
+
+    /**
+     * A bounded queue that records how full it gets and how long producers wait for room.
+     */
+    private static final class StageQueue {
+        private final BlockingQueue<Item> items;
+        private final AtomicInteger maxDepth = new AtomicInteger();
+        private final LongAdder blockedNanos = new LongAdder();
+        private final LongAdder sampledDepth = new LongAdder();
+        private final LongAdder samples = new LongAdder();
+
+        StageQueue(int capacity) {
+            items = new ArrayBlockingQueue<>(capacity);
+        }
+
+        /**
+         * Adds an item, waiting while the queue is full.
+         *
+         * @throws IllegalStateException if the thread is interrupted while waiting, because the pipeline is stopping.
+         */
+        void put(Item item) {
+            if (!items.offer(item)) {
+                long start = System.nanoTime();
+                try {
+                    items.put(item);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Delivery pipeline was stopped", e);
+                } finally {
+                    blockedNanos.add(System.nanoTime() - start);
+                }
+            }
+            maxDepth.accumulateAndGet(items.size(), Math::max);
+        }
+
+        Item take() throws InterruptedException {
+            return items.take();
+        }
+
+        void sample() {
+            sampledDepth.add(items.size());
+            samples.increment();
+        }
+
+        void reset() {
+            items.clear();
+            maxDepth.set(0);
+            blockedNanos.reset();
+            sampledDepth.reset();
+            samples.reset();
+        }
+
+        QueueStats stats() {
+            long count = samples.sum();
+            double meanDepth = count == 0 ? 0 : (double) sampledDepth.sum() / count;
+            return new QueueStats(items.size(), meanDepth, maxDepth.get(), blockedNanos.sum() / 1_000_000);
+        }
+    }
+}
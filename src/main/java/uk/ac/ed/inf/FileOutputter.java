@@ -1,16 +1,51 @@
 package uk.ac.ed.inf;
 
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
 import org.json.JSONArray;
 import org.json.JSONObject;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import uk.ac.ed.inf.ilp.data.Order;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.Iterator;
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Class responsible for converting order and flight path data into JSON format.
+ * Flight paths can also be streamed straight to a file, node by node, without building the
+ * whole document in memory first. Files are written as ResultFiles, so they only appear once complete.
+ * Flight path and GeoJSON files whose names end in ".gz" are gzip-compressed as they are written;
+ * ResultFileReader reads them back.
  */
 public class FileOutputter {
+    private static final JsonFactory jsonFactory = new JsonFactory();
+
+    // Suffix of compressed result files.
+    static final String GZIP_SUFFIX = ".gz";
+
+    // Compress the flight path and drone files, set with -Dpizzadronz.compress=gzip.
+    private static final boolean COMPRESS = "gzip".equalsIgnoreCase(System.getProperty("pizzadronz.compress"));
+
+    // Size of the compressor's output buffer.
+    private static final int GZIP_BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Gives the name to write a flight path or GeoJSON file under, which has the ".gz" suffix when
+     * compressed output is enabled.
+     *
+     * @param name The name of the uncompressed file.
+     * @return The name to write.
+     */
+    public static String outputName(String name) {
+        return COMPRESS ? name + GZIP_SUFFIX : name;
+    }
 
     /**
      * Converts an array of Order objects into a JSON string.
@@ -21,7 +56,9 @@ public class FileOutputter {
     public static String writeDeliveryJson(String date, Order[] orders) {
         JSONArray deliveryArray = new JSONArray();
         for (Order order : orders) {
-            System.out.println("Order No before JSON conversion: " + order.getOrderNo());
+            if (Log.isDebugEnabled()) {
+                Log.debug(() -> "Order No before JSON conversion: " + order.getOrderNo());
+            }
 
             JSONObject orderObject = new JSONObject();
             orderObject.put("orderNo", order.getOrderNo());
@@ -90,4 +127,278 @@ public class FileOutputter {
 
         return FeatureCollection.toString();
     }
+
+    /**
+     * Streams flight path nodes to a JSON file as they are produced.
+     * The file has the same content as writeFlightpathJson would give for the same nodes.
+     *
+     * @param nodes Iterator over the Node objects representing flight paths.
+     * @param path  The file to write; it is created or overwritten.
+     * @throws IOException if an I/O error occurs.
+     */
+    public static void writeFlightpathJson(Iterator<Node> nodes, Path path) throws IOException {
+        try (ResultFile file = ResultFile.create(path)) {
+            try (JsonGenerator generator = createGenerator(file, path)) {
+                generator.writeStartArray();
+                while (nodes.hasNext()) {
+                    Node node = nodes.next();
+                    writeMove(generator, node.getOrderNo().orElse(""), node.getStart().lng(), node.getStart().lat(),
+                            node.getAngle(), node.getEnd().lng(), node.getEnd().lat());
+                }
+                generator.writeEndArray();
+            }
+            file.commit();
+        }
+    }
+
+    /**
+     * Writes the moves of a flight path buffer to a JSON file.
+     * The file has the same content as writeFlightpathJson would give for the equivalent nodes.
+     *
+     * @param moves The flight paths.
+     * @param path  The file to write; it is created or overwritten.
+     * @throws IOException if an I/O error occurs.
+     */
+    public static void writeFlightpathJson(FlightPathBuffer moves, Path path) throws IOException {
+        try (ResultFile file = ResultFile.create(path)) {
+            try (JsonGenerator generator = createGenerator(file, path)) {
+                generator.writeStartArray();
+                for (int i = 0; i < moves.size(); i++) {
+                    String orderNo = moves.getOrderNo(i);
+                    writeMove(generator, orderNo == null ? "" : orderNo, moves.getFromLng(i), moves.getFromLat(i),
+                            moves.getAngle(i), moves.getToLng(i), moves.getToLat(i));
+                }
+                generator.writeEndArray();
+            }
+            file.commit();
+        }
+    }
+
+    /**
+     * Streams flight path nodes to a GeoJSON file as they are produced.
+     * The file has the same content as writeGeoJson would give for the same nodes.
+     *
+     * @param nodes Iterator over the Node objects representing geographic locations.
+     * @param path  The file to write; it is created or overwritten.
+     * @throws IOException if an I/O error occurs.
+     */
+    public static void writeGeoJson(Iterator<Node> nodes, Path path) throws IOException {
+        try (ResultFile file = ResultFile.create(path)) {
+            try (JsonGenerator generator = createGenerator(file, path)) {
+                writeGeoJsonStart(generator);
+                while (nodes.hasNext()) {
+                    Node node = nodes.next();
+                    writeCoordinate(generator, node.getStart().lng(), node.getStart().lat());
+                }
+                writeGeoJsonEnd(generator);
+            }
+            file.commit();
+        }
+    }
+
+    /**
+     * Writes the moves of a flight path buffer to a GeoJSON file.
+     * The file has the same content as writeGeoJson would give for the equivalent nodes.
+     *
+     * @param moves The flight paths.
+     * @param path  The file to write; it is created or overwritten.
+     * @throws IOException if an I/O error occurs.
+     */
+    public static void writeGeoJson(FlightPathBuffer moves, Path path) throws IOException {
+        try (ResultFile file = ResultFile.create(path)) {
+            try (JsonGenerator generator = createGenerator(file, path)) {
+                writeGeoJsonStart(generator);
+                for (int i = 0; i < moves.size(); i++) {
+                    writeCoordinate(generator, moves.getFromLng(i), moves.getFromLat(i));
+                }
+                writeGeoJsonEnd(generator);
+            }
+            file.commit();
+        }
+    }
+
+    /**
+     * Opens a writer that streams flight paths to a JSON file and a GeoJSON file as routes are added.
+     * The files have the same content as writeFlightpathJson and writeGeoJson would give for all the
+     * added moves together.
+     *
+     * @param flightpathPath The flight path JSON file; it is created or overwritten.
+     * @param geoJsonPath    The GeoJSON file; it is created or overwritten.
+     * @return The writer; finish completes both files, and closing it without finishing leaves any
+     * files already there as they were.
+     * @throws IOException if a file cannot be opened.
+     */
+    public static RouteWriter openRouteWriter(Path flightpathPath, Path geoJsonPath) throws IOException {
+        return new RouteWriter(flightpathPath, geoJsonPath);
+    }
+
+    /**
+     * Writes routes to a flight path JSON file and a GeoJSON file as they are planned.
+     * The files only replace any already there once finish is called, so a run that stops part way
+     * through leaves the last complete files in place. This class is not thread-safe.
+     */
+    public static final class RouteWriter implements Closeable {
+        private final ResultFile flightpathFile;
+        private final ResultFile geoJsonFile;
+        private final JsonGenerator flightpath;
+        private final JsonGenerator geoJson;
+        private int moves;
+        private boolean finished;
+
+        private RouteWriter(Path flightpathPath, Path geoJsonPath) throws IOException {
+            flightpathFile = ResultFile.create(flightpathPath);
+            try {
+                geoJsonFile = ResultFile.create(geoJsonPath);
+            } catch (IOException e) {
+                flightpathFile.close();
+                throw e;
+            }
+            flightpath = createGenerator(flightpathFile, flightpathPath);
+            geoJson = createGenerator(geoJsonFile, geoJsonPath);
+            flightpath.writeStartArray();
+            writeGeoJsonStart(geoJson);
+        }
+
+        /**
+         * Appends the moves of a route to both files.
+         *
+         * @param route The route.
+         * @throws IOException if an I/O error occurs.
+         */
+        public void append(FlightPathBuffer route) throws IOException {
+            for (int i = 0; i < route.size(); i++) {
+                String orderNo = route.getOrderNo(i);
+                writeMove(flightpath, orderNo == null ? "" : orderNo, route.getFromLng(i), route.getFromLat(i),
+                        route.getAngle(i), route.getToLng(i), route.getToLat(i));
+                writeCoordinate(geoJson, route.getFromLng(i), route.getFromLat(i));
+            }
+            moves += route.size();
+        }
+
+        /**
+         * @return The number of moves written so far.
+         */
+        public int getMoveCount() {
+            return moves;
+        }
+
+        /**
+         * Completes both files and moves them into place. Call once every route has been appended.
+         *
+         * @throws IOException if an I/O error occurs.
+         */
+        public void finish() throws IOException {
+            if (finished) {
+                return;
+            }
+            try (JsonGenerator first = flightpath; JsonGenerator second = geoJson) {
+                first.writeEndArray();
+                writeGeoJsonEnd(second);
+            }
+            flightpathFile.commit();
+            geoJsonFile.commit();
+            finished = true;
+        }
+
+        /**
+         * Releases the files. If finish was not called, the unfinished files are deleted and any
+         * files already at the targets are left as they were.
+         *
+         * @throws IOException if an I/O error occurs.
+         */
+        @Override
+        public void close() throws IOException {
+            try (ResultFile firstFile = flightpathFile; ResultFile secondFile = geoJsonFile) {
+                if (!finished) {
+                    try (JsonGenerator first = flightpath; JsonGenerator second = geoJson) {
+                        // Closing releases the generators; what they wrote is deleted with the uncommitted files
+                    }
+                }
+            }
+        }
+    }
+
+    private static void writeMove(JsonGenerator generator, String orderNo, double fromLng, double fromLat,
+                                  double angle, double toLng, double toLat) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("orderNo", orderNo);
+        generator.writeFieldName("fromLongitude");
+        generator.writeNumber(jsonNumber(fromLng));
+        generator.writeFieldName("fromLatitude");
+        generator.writeNumber(jsonNumber(fromLat));
+        generator.writeFieldName("angle");
+        generator.writeNumber(jsonNumber(angle));
+        generator.writeFieldName("toLatitude");
+        generator.writeNumber(jsonNumber(toLat));
+        generator.writeFieldName("toLongitude");
+        generator.writeNumber(jsonNumber(toLng));
+        generator.writeEndObject();
+    }
+
+    // Opens the single LineString feature up to its coordinates array.
+    private static void writeGeoJsonStart(JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("type", "FeatureCollection");
+        generator.writeArrayFieldStart("features");
+        generator.writeStartObject();
+        generator.writeStringField("type", "Feature");
+        generator.writeStringField("properties", "NULL");
+        generator.writeObjectFieldStart("geometry");
+        generator.writeStringField("type", "LineString");
+        generator.writeArrayFieldStart("coordinates");
+    }
+
+    private static void writeCoordinate(JsonGenerator generator, double lng, double lat) throws IOException {
+        generator.writeStartArray();
+        generator.writeNumber(lng);
+        generator.writeNumber(lat);
+        generator.writeEndArray();
+    }
+
+    // Closes everything opened by writeGeoJsonStart.
+    private static void writeGeoJsonEnd(JsonGenerator generator) throws IOException {
+        generator.writeEndArray();
+        generator.writeEndObject();
+        generator.writeEndObject();
+        generator.writeEndArray();
+        generator.writeEndObject();
+    }
+
+    /**
+     * Creates a JSON generator writing into a result file, compressing what it writes if the file name
+     * ends in ".gz". Closing the generator finishes the compressed stream but does not commit the file.
+     *
+     * @param file The file to write.
+     * @param path The path of the file.
+     * @return The generator.
+     * @throws IOException if the generator cannot be created.
+     */
+    private static JsonGenerator createGenerator(ResultFile file, Path path) throws IOException {
+        OutputStream out = file.getOutputStream();
+        if (path.getFileName().toString().endsWith(GZIP_SUFFIX)) {
+            out = new GZIPOutputStream(out, GZIP_BUFFER_SIZE);
+        }
+        return jsonFactory.createGenerator(out, JsonEncoding.UTF8);
+    }
+
+    /**
+     * Formats a number as org.json does, dropping trailing zeros after the decimal point.
+     *
+     * @param value The number to format.
+     * @return The JSON text of the number.
+     */
+    private static String jsonNumber(double value) {
+        String text = Double.toString(value);
+        if (text.indexOf('.') > 0 && text.indexOf('e') < 0 && text.indexOf('E') < 0) {
+            int end = text.length();
+            while (text.charAt(end - 1) == '0') {
+                end--;
+            }
+            if (text.charAt(end - 1) == '.') {
+                end--;
+            }
+            text = text.substring(0, end);
+        }
+        return text;
+    }
 }
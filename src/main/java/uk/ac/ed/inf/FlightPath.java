@@ -4,28 +4,71 @@ import uk.ac.ed.inf.ilp.data.NamedRegion;
 import uk.ac.ed.inf.ilp.data.LngLat;
 import uk.ac.ed.inf.ilp.data.Order;
 
+import java.io.UncheckedIOException;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static uk.ac.ed.inf.ilp.constant.OrderStatus.DELIVERED;
+import static uk.ac.ed.inf.ilp.constant.SystemConstants.CENTRAL_REGION_NAME;
+import static uk.ac.ed.inf.ilp.constant.SystemConstants.DRONE_IS_CLOSE_DISTANCE;
+import static uk.ac.ed.inf.ilp.constant.SystemConstants.DRONE_MOVE_DISTANCE;
 
 public class FlightPath {
     private final LngLat dropOffLocation = new LngLat(-3.186874, 55.944494);
 
-    // Predefined angles for flight direction.
-    private static final double[] ANGLES = {0, 22.5, 45, 67.5, 90, 112.5, 135, 157.5, 180, 202.5, 225, 247.5, 270, 292.5, 315, 337.5};
+    // Default maximum number of nodes a single A* search may expand before giving up.
+    public static final int DEFAULT_EXPANSION_BUDGET = 500_000;
+
+    // Angle between two neighbouring flight directions, in radians.
+    private static final double SECTOR = Math.toRadians(LngLatHandler.DIRECTION_STEP);
+
+    // Grid size used to identify lattice positions reached along different paths.
+    private static final double POSITION_RESOLUTION = DRONE_MOVE_DISTANCE / 10;
+
+    // Number of grid cells the search tables hold before they first grow.
+    private static final int INITIAL_CELL_CAPACITY = 1 << 12;
 
     // Central area where the drone can fly.
     private final NamedRegion centralArea;
 
+    // Central area in compiled form; it never changes during a run.
+    private final CompiledRegion compiledCentralArea;
+
     // No-fly zones to avoid during the flight.
     private final NamedRegion[] noFlyZones;
 
-    // Cache to store previously calculated paths.
-    private final Map<String, List<Node>> cachedPaths = new HashMap<>();
+    // Grid index over the no-fly zone edges, built once per FlightPath.
+    private final NoFlyZoneIndex noFlyZoneIndex;
+
+    // Cache to store previously calculated paths, shared by all planning threads and possibly other FlightPaths.
+    private final RouteCache routeCache;
+
+    // Identifies the regions and search settings in cache keys, so FlightPaths sharing a cache never mix routes.
+    private final long routeVersion;
+
+    // Routes kept on disk from earlier runs, or null to plan every route not in the cache.
+    private final RouteStore routeStore;
 
     // Handler for latitude and longitude calculations.
     private final LngLatHandler lngLatHandler = new LngLatHandler();
 
+    // Maximum number of nodes a single search may expand.
+    private final int expansionBudget;
+
+    // Weight applied to the heuristic; 1 gives shortest paths, larger values trade length for speed.
+    private final double heuristicWeight;
+
+    // Total number of nodes expanded by all searches of this instance.
+    private final AtomicLong expandedNodes = new AtomicLong();
+
+    // Run-wide metrics for every FlightPath.
+    private static final Metrics.Counter ROUTES_PLANNED = Metrics.counter("flightpath.routesPlanned");
+    private static final Metrics.Counter ROUTES_FROM_STORE = Metrics.counter("flightpath.routesFromStore");
+    private static final Metrics.Counter MOVES = Metrics.counter("flightpath.moves");
+    private static final Metrics.Counter GEOMETRY_TESTS = Metrics.counter("flightpath.geometryTests");
+    private static final Metrics.Histogram GEOMETRY_TESTS_PER_MOVE = Metrics.histogram("flightpath.geometryTestsPerMove");
+    private static final Metrics.Histogram SEARCH_NANOS = Metrics.histogram("flightpath.searchNanos");
+
     /**
      * Constructor for FlightPath. Initializes no-fly zones and the central area.
      *
@@ -33,12 +76,95 @@ public class FlightPath {
      * @param centralArea The central area of operation.
      */
     public FlightPath(NamedRegion[] noFlyZones, NamedRegion centralArea) {
+        this(noFlyZones, centralArea, DEFAULT_EXPANSION_BUDGET, 1.0);
+    }
+
+    /**
+     * Constructor for FlightPath with explicit search settings.
+     *
+     * @param noFlyZones The array of no-fly zones.
+     * @param centralArea The central area of operation.
+     * @param expansionBudget Maximum number of nodes a single search may expand.
+     * @param heuristicWeight Weight applied to the A* heuristic, at least 1.
+     */
+    public FlightPath(NamedRegion[] noFlyZones, NamedRegion centralArea, int expansionBudget, double heuristicWeight) {
+        this(noFlyZones, centralArea, expansionBudget, heuristicWeight, new RouteCache(), null);
+    }
+
+    /**
+     * Constructor for FlightPath that stores its routes in the given cache.
+     *
+     * @param noFlyZones The array of no-fly zones.
+     * @param centralArea The central area of operation.
+     * @param routeCache The cache to store routes in, which may be shared with other FlightPaths.
+     */
+    public FlightPath(NamedRegion[] noFlyZones, NamedRegion centralArea, RouteCache routeCache) {
+        this(noFlyZones, centralArea, DEFAULT_EXPANSION_BUDGET, 1.0, routeCache, null);
+    }
+
+    /**
+     * Constructor for FlightPath that stores its routes in the given cache, backed by routes on disk.
+     *
+     * @param noFlyZones The array of no-fly zones.
+     * @param centralArea The central area of operation.
+     * @param routeCache The cache to store routes in, which may be shared with other FlightPaths.
+     * @param routeStore Routes kept on disk between runs, or null to plan every route not in the cache.
+     */
+    public FlightPath(NamedRegion[] noFlyZones, NamedRegion centralArea, RouteCache routeCache, RouteStore routeStore) {
+        this(noFlyZones, centralArea, DEFAULT_EXPANSION_BUDGET, 1.0, routeCache, routeStore);
+    }
+
+    /**
+     * Constructor for FlightPath with explicit search settings that stores its routes in the given cache.
+     *
+     * @param noFlyZones The array of no-fly zones.
+     * @param centralArea The central area of operation.
+     * @param expansionBudget Maximum number of nodes a single search may expand.
+     * @param heuristicWeight Weight applied to the A* heuristic, at least 1.
+     * @param routeCache The cache to store routes in, which may be shared with other FlightPaths.
+     * @param routeStore Routes kept on disk between runs, or null to plan every route not in the cache.
+     */
+    public FlightPath(NamedRegion[] noFlyZones, NamedRegion centralArea, int expansionBudget, double heuristicWeight,
+                      RouteCache routeCache, RouteStore routeStore) {
+        if (expansionBudget <= 0) {
+            throw new IllegalArgumentException("Expansion budget must be positive");
+        }
+        if (heuristicWeight < 1) {
+            throw new IllegalArgumentException("Heuristic weight must be at least 1");
+        }
+        if (centralArea == null || !CENTRAL_REGION_NAME.equals(centralArea.name())) {
+            throw new IllegalArgumentException("Central area must be a region named " + CENTRAL_REGION_NAME);
+        }
         this.noFlyZones = noFlyZones;
+        this.noFlyZoneIndex = new NoFlyZoneIndex(noFlyZones);
         this.centralArea = centralArea;
+        this.compiledCentralArea = new CompiledRegion(centralArea);
+        this.expansionBudget = expansionBudget;
+        this.heuristicWeight = heuristicWeight;
+        this.routeCache = Objects.requireNonNull(routeCache, "routeCache");
+        this.routeStore = routeStore;
+        // Routes planned with a weighted heuristic may be longer, so they are kept apart from shortest routes.
+        long regionHash = RouteTable.regionHash(noFlyZones, centralArea);
+        this.routeVersion = heuristicWeight == 1 ? regionHash : regionHash ^ Double.doubleToLongBits(heuristicWeight);
+    }
+
+    /**
+     * @return The total number of nodes expanded by the A* searches of this FlightPath.
+     */
+    public long getExpandedNodeCount() {
+        return expandedNodes.get();
+    }
+
+    /**
+     * @return The cache this FlightPath stores its routes in.
+     */
+    public RouteCache getRouteCache() {
+        return routeCache;
     }
 
     /**
      * Finds the total path for a flight from a restaurant to a drop-off location.
+     * This method is safe to call from several threads at once; each route is planned only once.
      *
      * @param restaurantLoc The starting location (restaurant).
      * @param dropOff The destination location (drop-off).
@@ -46,65 +172,230 @@ public class FlightPath {
      * @return List of Nodes representing the flight path.
      */
     public List<Node> findTotalPath(LngLat restaurantLoc, LngLat dropOff, String orderNo) {
-        String key = generateCacheKey(restaurantLoc, dropOff);
-        // Computes path if not already cached.
-        return cachedPaths.computeIfAbsent(key, k -> generateAndCacheRoute(restaurantLoc, dropOff, orderNo));
+        FlightPathBuffer route = new FlightPathBuffer();
+        appendTotalPath(restaurantLoc, dropOff, orderNo, route);
+        return route.toNodes();
     }
 
     /**
-     * Generates and caches a new route.
+     * Finds the total path for a flight from a restaurant to a drop-off location and appends it to
+     * a buffer, with every move labelled with the given order number.
+     * This method is safe to call from several threads at once, as long as each uses its own buffer;
+     * each route is planned only once.
      *
      * @param restaurantLoc The starting location (restaurant).
      * @param dropOff The destination location (drop-off).
      * @param orderNo The order number associated with the flight.
-     * @return List of Nodes representing the combined route.
+     * @param route The buffer to append the flight path to.
+     */
+    public void appendTotalPath(LngLat restaurantLoc, LngLat dropOff, String orderNo, FlightPathBuffer route) {
+        // Computes path if not already cached; the cached buffer is only ever copied from.
+        FlightPathBuffer cachedRoute = routeCache.get(cacheKey(restaurantLoc, dropOff), key -> generateAndCacheRoute(key, restaurantLoc, dropOff));
+        route.addAll(cachedRoute, orderNo);
+        MOVES.add(cachedRoute.size());
+    }
+
+    /**
+     * Generates a new route for the cache, reading it from the route store if it was planned in an
+     * earlier run and adding it to the store otherwise.
+     *
+     * @param key The cache key of the route.
+     * @param restaurantLoc The starting location (restaurant).
+     * @param dropOff The destination location (drop-off).
+     * @return The combined route, without order numbers.
+     */
+    private FlightPathBuffer generateAndCacheRoute(RouteCache.Key key, LngLat restaurantLoc, LngLat dropOff) {
+        FlightPathBuffer routeToRestaurant = null;
+        if (routeStore != null) {
+            try {
+                routeToRestaurant = routeStore.find(key).orElse(null);
+            } catch (UncheckedIOException e) {
+                // The route is planned instead, as if it had not been stored.
+                Log.warn("Could not read stored route: " + e.getCause().getMessage());
+            }
+        }
+        if (routeToRestaurant != null) {
+            ROUTES_FROM_STORE.increment();
+        } else {
+            routeToRestaurant = findPath(dropOff, restaurantLoc);
+            if (routeStore != null) {
+                try {
+                    routeStore.append(key, routeToRestaurant);
+                } catch (UncheckedIOException e) {
+                    // The route is still cached for this run; it is only planned again next time.
+                    Log.warn("Could not store route: " + e.getCause().getMessage());
+                }
+            }
+        }
+        return combineWithReturnPath(routeToRestaurant);
+    }
+
+    /**
+     * Adds a precomputed route to the cache, so that later calls to findTotalPath for the same
+     * locations do not plan it again.
+     *
+     * @param restaurantLoc The restaurant location the route leads to.
+     * @param dropOff The drop-off location the route starts from.
+     * @param routeToRestaurant The route from the drop-off to the restaurant, ending with a hover.
+     */
+    public void addCachedRoute(LngLat restaurantLoc, LngLat dropOff, List<Node> routeToRestaurant) {
+        routeCache.put(cacheKey(restaurantLoc, dropOff), combineWithReturnPath(FlightPathBuffer.of(routeToRestaurant)));
+    }
+
+    /**
+     * Appends the return path to a route to the restaurant. The return path is the reverse of the
+     * route, with each direction adjusted by 180 degrees, and ends with a hover.
+     *
+     * @param routeToRestaurant The route from the drop-off to the restaurant, ending with a hover.
+     * @return The combined route, without order numbers.
      */
-    private List<Node> generateAndCacheRoute(LngLat restaurantLoc, LngLat dropOff, String orderNo) {
-        List<Node> routeToRestaurant = findPath(dropOff, restaurantLoc, orderNo);
-        List<Node> returnRoute = createReturnPath(routeToRestaurant, orderNo);
-        List<Node> combinedRoute = new ArrayList<>(routeToRestaurant);
-        combinedRoute.addAll(returnRoute);
+    private FlightPathBuffer combineWithReturnPath(FlightPathBuffer routeToRestaurant) {
+        int moves = routeToRestaurant.size();
+        FlightPathBuffer combinedRoute = new FlightPathBuffer(2 * moves);
+        combinedRoute.addAll(routeToRestaurant, null);
+
+        // Reverses each move, skipping hovers, from the last move back to the first.
+        double endLng = routeToRestaurant.getFromLng(0);
+        double endLat = routeToRestaurant.getFromLat(0);
+        for (int i = moves - 1; i >= 0; i--) {
+            double angle = routeToRestaurant.getAngle(i);
+            if (angle != 999) {
+                endLng = routeToRestaurant.getFromLng(i);
+                endLat = routeToRestaurant.getFromLat(i);
+                combinedRoute.add(routeToRestaurant.getToLng(i), routeToRestaurant.getToLat(i), (angle + 180) % 360,
+                        endLng, endLat, FlightPathBuffer.NO_ORDER);
+            }
+        }
+        // Adds the final hover node to the return route.
+        combinedRoute.add(endLng, endLat, 999, endLng, endLat, FlightPathBuffer.NO_ORDER);
         return combinedRoute;
     }
 
     /**
-     * Finds the optimal path from a start point to an end point, avoiding no-fly zones.
-     * The path is determined based on a set of predefined angles and the shortest distance
-     * to the destination.
+     * Finds the shortest path from a start point to an end point, avoiding no-fly zones.
+     * This is an A* search over the positions reachable with the predefined angles, where every
+     * move has the same cost. Positions closer together than a tenth of a move are treated as the
+     * same search state.
      *
      * @param start The starting location as a LngLat object.
      * @param end The destination location as a LngLat object.
-     * @param orderNo The order number for which the path is being calculated.
-     * @return List of Nodes representing the path from start to end.
-     */
-    private List<Node> findPath(LngLat start, LngLat end, String orderNo) {
-        Set<LngLat> prevNodes = new HashSet<>();
-        LngLat currentPosition = start;
-        List<Node> route = new ArrayList<>();
-
-        // Continues until the end point is close.
-        while (!lngLatHandler.isCloseTo(currentPosition, end)) {
-            double closestDistance = Double.MAX_VALUE;
-            double chosenAngle = 0;
-
-            // Chooses the best angle to move towards the end point.
-            for (double angle : ANGLES) {
-                LngLat nextPosition = lngLatHandler.nextPosition(currentPosition, angle);
-                if (prevNodes.add(nextPosition) && isMovePermissible(currentPosition, nextPosition)) {
-                    double distance = lngLatHandler.distanceTo(nextPosition, end);
-                    if (distance < closestDistance) {
-                        closestDistance = distance;
-                        chosenAngle = angle;
+     * @return The path from start to end, without order numbers.
+     * @throws IllegalStateException if no route is found within the expansion budget.
+     */
+    private FlightPathBuffer findPath(LngLat start, LngLat end) {
+        PriorityQueue<SearchNode> open = new PriorityQueue<>();
+        // Keyed by grid cell, so visited positions are tracked without boxing.
+        LongDoubleHashMap bestCost = new LongDoubleHashMap(INITIAL_CELL_CAPACITY);
+        LongHashSet closed = new LongHashSet(INITIAL_CELL_CAPACITY);
+
+        open.add(new SearchNode(start, 0, heuristic(start, end), lngLatHandler.distanceTo(start, end), 0, null));
+        bestCost.put(positionKey(start, start), 0.0);
+        int expansions = 0;
+        int geometryTests = 0;
+        long startNanos = System.nanoTime();
+
+        try {
+            while (!open.isEmpty()) {
+                SearchNode current = open.poll();
+                if (lngLatHandler.isCloseTo(current.position, end)) {
+                    FlightPathBuffer route = buildRoute(current);
+                    ROUTES_PLANNED.increment();
+                    GEOMETRY_TESTS_PER_MOVE.record(geometryTests / route.size());
+                    return route;
+                }
+                if (!closed.add(positionKey(current.position, start))) {
+                    continue;
+                }
+                if (++expansions > expansionBudget) {
+                    break;
+                }
+
+                double lng = current.position.lng();
+                double lat = current.position.lat();
+                boolean currentInCentralArea = compiledCentralArea.contains(lng, lat);
+                for (int direction = 0; direction < LngLatHandler.DIRECTIONS; direction++) {
+                    double nextLng = LngLatHandler.nextLng(lng, direction);
+                    double nextLat = LngLatHandler.nextLat(lat, direction);
+                    long key = positionKey(nextLng, nextLat, start);
+                    double cost = current.cost + DRONE_MOVE_DISTANCE;
+                    if (closed.contains(key) || cost >= bestCost.get(key, Double.MAX_VALUE)) {
+                        continue;
+                    }
+                    geometryTests++;
+                    if (isMovePermissible(lng, lat, currentInCentralArea, nextLng, nextLat)) {
+                        bestCost.put(key, cost);
+                        LngLat nextPosition = new LngLat(nextLng, nextLat);
+                        open.add(new SearchNode(nextPosition, cost, cost + heuristicWeight * heuristic(nextPosition, end),
+                                lngLatHandler.distanceTo(nextPosition, end), direction * LngLatHandler.DIRECTION_STEP, current));
                     }
                 }
             }
+        } finally {
+            expandedNodes.addAndGet(Math.min(expansions, expansionBudget));
+            GEOMETRY_TESTS.add(geometryTests);
+            SEARCH_NANOS.recordSince(startNanos);
+        }
+        throw new IllegalStateException("No route found from " + start + " to " + end + " within " + expansionBudget + " expansions");
+    }
+
+    /**
+     * Estimates the remaining path length from a position to the end point.
+     * The straight-line distance is stretched by how far its direction lies from the nearest
+     * predefined angles, which is the exact length of the shortest path without obstacles.
+     * The close distance, stretched by the worst case, is taken off as the search stops there.
+     *
+     * @param position The position to estimate from.
+     * @param end The destination location.
+     * @return A lower bound on the remaining path length.
+     */
+    private double heuristic(LngLat position, LngLat end) {
+        double distance = lngLatHandler.distanceTo(position, end);
+        double direction = Math.atan2(end.lat() - position.lat(), end.lng() - position.lng());
+        double offset = Math.abs(Math.IEEEremainder(direction, SECTOR));
+        double latticeDistance = distance * (Math.sin(SECTOR - offset) + Math.sin(offset)) / Math.sin(SECTOR);
+        return Math.max(0, latticeDistance - DRONE_IS_CLOSE_DISTANCE / Math.cos(SECTOR / 2));
+    }
+
+    /**
+     * Maps a position to a grid cell key, so that positions reached along different paths
+     * are treated as the same search state.
+     *
+     * @param position The position to map.
+     * @param origin The start of the search, used as the grid origin.
+     * @return A key packing the grid column and row of the position.
+     */
+    private long positionKey(LngLat position, LngLat origin) {
+        return positionKey(position.lng(), position.lat(), origin);
+    }
+
+    private long positionKey(double lng, double lat, LngLat origin) {
+        long column = Math.round((lng - origin.lng()) / POSITION_RESOLUTION);
+        long row = Math.round((lat - origin.lat()) / POSITION_RESOLUTION);
+        return (column << 32) | (row & 0xFFFFFFFFL);
+    }
 
-            // Adds the node to the route and updates the current position.
-            route.add(new Node(currentPosition, chosenAngle, lngLatHandler.nextPosition(currentPosition, chosenAngle), orderNo));
-            currentPosition = lngLatHandler.nextPosition(currentPosition, chosenAngle);
+    /**
+     * Walks back from a goal node to the start and builds the route, including the final hover.
+     *
+     * @param goal The node the search ended on.
+     * @return The path from start to end, without order numbers.
+     */
+    private FlightPathBuffer buildRoute(SearchNode goal) {
+        int moves = 0;
+        for (SearchNode node = goal; node.parent != null; node = node.parent) {
+            moves++;
+        }
+        SearchNode[] path = new SearchNode[moves];
+        for (SearchNode node = goal; node.parent != null; node = node.parent) {
+            path[--moves] = node;
         }
-        // Adds the final node to the route.
-        route.add(new Node(currentPosition, 999, currentPosition, orderNo));
+
+        FlightPathBuffer route = new FlightPathBuffer(path.length + 1);
+        for (SearchNode node : path) {
+            route.add(node.parent.position.lng(), node.parent.position.lat(), node.angle,
+                    node.position.lng(), node.position.lat(), FlightPathBuffer.NO_ORDER);
+        }
+        route.add(goal.position.lng(), goal.position.lat(), 999, goal.position.lng(), goal.position.lat(), FlightPathBuffer.NO_ORDER);
         return route;
     }
 
@@ -113,55 +404,58 @@ public class FlightPath {
      * A move is permissible if it doesn't enter a no-fly zone and adheres to the
      * central area constraints.
      *
-     * @param current The current position as a LngLat object.
-     * @param next The next position as a LngLat object.
+     * @param currentLng Longitude of the current position.
+     * @param currentLat Latitude of the current position.
+     * @param currentInCentralArea Whether the current position is in the central area.
+     * @param nextLng Longitude of the next position.
+     * @param nextLat Latitude of the next position.
      * @return boolean indicating whether the move is permissible or not.
      */
-    private boolean isMovePermissible(LngLat current, LngLat next) {
+    private boolean isMovePermissible(double currentLng, double currentLat, boolean currentInCentralArea, double nextLng, double nextLat) {
         // Checks for no-fly zones and central area constraints.
-        if (lngLatHandler.isInCentralArea(current, centralArea) || !lngLatHandler.isInCentralArea(next, centralArea)) {
-            // Modify this line to use the LngLatHandler's method to check if the move is permissible.
-            return !lngLatHandler.pathGoesThroughNoFlyZones(current, next, noFlyZones);
+        if (currentInCentralArea || !compiledCentralArea.contains(nextLng, nextLat)) {
+            return !noFlyZoneIndex.pathGoesThroughNoFlyZones(currentLng, currentLat, nextLng, nextLat);
         }
         return true;
     }
 
     /**
-     * Creates a return path from the given route. The return path is essentially
-     * the reverse of the given route, with each direction adjusted by 180 degrees.
+     * Generates the cache key for a route between two locations planned by this FlightPath.
      *
-     * @param route The initial route for which the return path is to be created.
-     * @param orderNo The order number associated with the route.
-     * @return List of Nodes representing the return path.
+     * @param restaurantLoc The restaurant location.
+     * @param dropOff The drop-off location.
+     * @return The cache key.
      */
-    private List<Node> createReturnPath(List<Node> route, String orderNo) {
-        List<Node> reversed = new ArrayList<>();
-        for (Node node : route) {
-            // Reverses each node's direction.
-            if (node.getAngle() != 999) {
-                Node reversedNode = new Node(node.getEnd(), (node.getAngle() + 180) % 360, node.getStart(), orderNo);
-                reversed.add(reversedNode);
-            }
-        }
-        Collections.reverse(reversed);
-        // Adds the final hover node to the return route.
-        LngLat endHover = reversed.get(reversed.size() - 1).getEnd();
-        reversed.add(new Node(endHover, 999, endHover, orderNo));
-        return reversed;
+    private RouteCache.Key cacheKey(LngLat restaurantLoc, LngLat dropOff) {
+        return new RouteCache.Key(restaurantLoc.lng(), restaurantLoc.lat(), dropOff.lng(), dropOff.lat(), routeVersion);
     }
 
     /**
-     * Generates a unique cache key based on the start and end locations.
-     * This key is used to cache and retrieve precomputed paths.
-     *
-     * @param loc1 The first location as a LngLat object.
-     * @param loc2 The second location as a LngLat object.
-     * @return String representing the unique cache key.
+     * A position reached by the A* search, with the cost of getting there and the move that led to it.
      */
-    private String generateCacheKey(LngLat loc1, LngLat loc2) {
-        return "KEY:" + loc1.lng() + loc1.lat() + loc2.lng() + loc2.lat();
-    }
+    private static final class SearchNode implements Comparable<SearchNode> {
+        private final LngLat position;
+        private final double cost;
+        private final double estimate;
+        private final double distanceToEnd;
+        private final double angle;
+        private final SearchNode parent;
 
+        private SearchNode(LngLat position, double cost, double estimate, double distanceToEnd, double angle, SearchNode parent) {
+            this.position = position;
+            this.cost = cost;
+            this.estimate = estimate;
+            this.distanceToEnd = distanceToEnd;
+            this.angle = angle;
+            this.parent = parent;
+        }
 
+        @Override
+        public int compareTo(SearchNode other) {
+            // Lowest estimated total first; ties go to the node nearest the destination.
+            int byEstimate = Double.compare(estimate, other.estimate);
+            return byEstimate != 0 ? byEstimate : Double.compare(distanceToEnd, other.distanceToEnd);
+        }
+    }
 }
 
@@ -0,0 +1,228 @@
+package uk.ac.ed.inf;
+
+import uk.ac.ed.inf.ilp.data.LngLat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A sequence of drone moves stored as parallel primitive arrays, one entry per move.
+ * Order numbers are kept once in a string table and referenced by index, so a full day of
+ * deliveries needs a handful of arrays instead of one Node, two LngLats and an Optional per move.
+ * This class is not thread-safe.
+ */
+public final class FlightPathBuffer {
+    // Order index of moves that do not belong to an order.
+    public static final int NO_ORDER = -1;
+
+    private static final int DEFAULT_CAPACITY = 64;
+
+    private double[] fromLng;
+    private double[] fromLat;
+    private double[] toLng;
+    private double[] toLat;
+    private double[] angle;
+    private int[] order;
+    private int size;
+
+    // Order numbers referenced by the moves, and their indices.
+    private final List<String> orderNos = new ArrayList<>();
+    private final Map<String, Integer> orderIndices = new HashMap<>();
+
+    /**
+     * Creates an empty buffer.
+     */
+    public FlightPathBuffer() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an empty buffer with room for the given number of moves.
+     *
+     * @param capacity The initial number of moves.
+     */
+    public FlightPathBuffer(int capacity) {
+        capacity = Math.max(capacity, 1);
+        fromLng = new double[capacity];
+        fromLat = new double[capacity];
+        toLng = new double[capacity];
+        toLat = new double[capacity];
+        angle = new double[capacity];
+        order = new int[capacity];
+    }
+
+    /**
+     * Creates a buffer holding the given moves.
+     *
+     * @param nodes The moves to copy.
+     * @return A buffer with one entry per node.
+     */
+    public static FlightPathBuffer of(List<Node> nodes) {
+        FlightPathBuffer buffer = new FlightPathBuffer(nodes.size());
+        for (Node node : nodes) {
+            buffer.add(node.getStart().lng(), node.getStart().lat(), node.getAngle(), node.getEnd().lng(), node.getEnd().lat(),
+                    buffer.orderIndex(node.getOrderNo().orElse(null)));
+        }
+        return buffer;
+    }
+
+    /**
+     * Returns the index of an order number in the string table, adding it if needed.
+     *
+     * @param orderNo The order number, or null for moves without an order.
+     * @return The index to pass to add, or NO_ORDER for null.
+     */
+    public int orderIndex(String orderNo) {
+        if (orderNo == null) {
+            return NO_ORDER;
+        }
+        Integer index = orderIndices.get(orderNo);
+        if (index == null) {
+            index = orderNos.size();
+            orderNos.add(orderNo);
+            orderIndices.put(orderNo, index);
+        }
+        return index;
+    }
+
+    /**
+     * Appends a move.
+     *
+     * @param fromLng    Longitude the move starts at.
+     * @param fromLat    Latitude the move starts at.
+     * @param angle      Direction of the move in degrees, or 999 for a hover.
+     * @param toLng      Longitude the move ends at.
+     * @param toLat      Latitude the move ends at.
+     * @param orderIndex Index of the order number as returned by orderIndex.
+     */
+    public void add(double fromLng, double fromLat, double angle, double toLng, double toLat, int orderIndex) {
+        ensureCapacity(size + 1);
+        this.fromLng[size] = fromLng;
+        this.fromLat[size] = fromLat;
+        this.toLng[size] = toLng;
+        this.toLat[size] = toLat;
+        this.angle[size] = angle;
+        this.order[size] = orderIndex;
+        size++;
+    }
+
+    /**
+     * Appends all moves of another buffer, labelled with the given order number.
+     *
+     * @param other   The moves to append.
+     * @param orderNo The order number for the appended moves, or null for none.
+     */
+    public void addAll(FlightPathBuffer other, String orderNo) {
+        int count = other.size;
+        ensureCapacity(size + count);
+        System.arraycopy(other.fromLng, 0, fromLng, size, count);
+        System.arraycopy(other.fromLat, 0, fromLat, size, count);
+        System.arraycopy(other.toLng, 0, toLng, size, count);
+        System.arraycopy(other.toLat, 0, toLat, size, count);
+        System.arraycopy(other.angle, 0, angle, size, count);
+        Arrays.fill(order, size, size + count, orderIndex(orderNo));
+        size += count;
+    }
+
+    /**
+     * Appends all moves of another buffer, keeping their order numbers.
+     *
+     * @param other The moves to append.
+     */
+    public void addAll(FlightPathBuffer other) {
+        int count = other.size;
+        ensureCapacity(size + count);
+        System.arraycopy(other.fromLng, 0, fromLng, size, count);
+        System.arraycopy(other.fromLat, 0, fromLat, size, count);
+        System.arraycopy(other.toLng, 0, toLng, size, count);
+        System.arraycopy(other.toLat, 0, toLat, size, count);
+        System.arraycopy(other.angle, 0, angle, size, count);
+        for (int i = 0; i < count; i++) {
+            int index = other.order[i];
+            order[size + i] = index == NO_ORDER ? NO_ORDER : orderIndex(other.orderNos.get(index));
+        }
+        size += count;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= fromLng.length) {
+            return;
+        }
+        int capacity = Math.max(required, fromLng.length * 2);
+        fromLng = Arrays.copyOf(fromLng, capacity);
+        fromLat = Arrays.copyOf(fromLat, capacity);
+        toLng = Arrays.copyOf(toLng, capacity);
+        toLat = Arrays.copyOf(toLat, capacity);
+        angle = Arrays.copyOf(angle, capacity);
+        order = Arrays.copyOf(order, capacity);
+    }
+
+    /**
+     * @return The number of moves.
+     */
+    public int size() {
+        return size;
+    }
+
+    public double getFromLng(int i) {
+        return fromLng[checkIndex(i)];
+    }
+
+    public double getFromLat(int i) {
+        return fromLat[checkIndex(i)];
+    }
+
+    public double getToLng(int i) {
+        return toLng[checkIndex(i)];
+    }
+
+    public double getToLat(int i) {
+        return toLat[checkIndex(i)];
+    }
+
+    public double getAngle(int i) {
+        return angle[checkIndex(i)];
+    }
+
+    /**
+     * @param i Index of the move.
+     * @return The order number of the move, or null if it has none.
+     */
+    public String getOrderNo(int i) {
+        int index = order[checkIndex(i)];
+        return index == NO_ORDER ? null : orderNos.get(index);
+    }
+
+    private int checkIndex(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Index " + i + " out of bounds for length " + size);
+        }
+        return i;
+    }
+
+    /**
+     * Creates a Node for one move, for code that still works with Nodes.
+     *
+     * @param i Index of the move.
+     * @return A new Node with the move's positions, angle and order number.
+     */
+    public Node getNode(int i) {
+        return new Node(new LngLat(getFromLng(i), getFromLat(i)), angle[i], new LngLat(toLng[i], toLat[i]), getOrderNo(i));
+    }
+
+    /**
+     * Creates a Node for every move, for code that still works with Nodes.
+     *
+     * @return A new list of Nodes in move order.
+     */
+    public List<Node> toNodes() {
+        List<Node> nodes = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            nodes.add(getNode(i));
+        }
+        return nodes;
+    }
+}
@@ -15,6 +15,28 @@ import static uk.ac.ed.inf.ilp.constant.SystemConstants.DRONE_MOVE_DISTANCE;
  */
 public class LngLatHandler implements LngLatHandling {
 
+    // Number of legal flight directions, 22.5 degrees apart starting from east.
+    public static final int DIRECTIONS = 16;
+
+    // Angle between two neighbouring flight directions, in degrees.
+    public static final double DIRECTION_STEP = 22.5;
+
+    // Change in longitude and latitude of one move in each direction, indexed by angle / 22.5.
+    // The extra last entry is 360 degrees, so every legal angle maps to exactly the values it had before.
+    private static final double[] MOVE_LNG = new double[DIRECTIONS + 1];
+    private static final double[] MOVE_LAT = new double[DIRECTIONS + 1];
+
+    static {
+        for (int direction = 0; direction <= DIRECTIONS; direction++) {
+            MOVE_LNG[direction] = DRONE_MOVE_DISTANCE * Math.cos(Math.toRadians(direction * DIRECTION_STEP));
+            MOVE_LAT[direction] = DRONE_MOVE_DISTANCE * Math.sin(Math.toRadians(direction * DIRECTION_STEP));
+        }
+    }
+
+    // Region most recently checked by isInRegion, in compiled form. It is volatile so a region compiled
+    // on one thread is seen whole by the others; threads sharing this handler at worst compile a region again.
+    private volatile CompiledRegion lastCompiledRegion;
+
     public LngLatHandler() {
     }
 
@@ -47,6 +69,8 @@ public class LngLatHandler implements LngLatHandling {
     /**
      * Determines whether a given position is inside a specified region.
      * This method uses the ray-casting algorithm to determine if the point is inside the polygon.
+     * The last region checked is kept in compiled form, so repeated checks against the same
+     * region (such as the central area) do not rebuild it.
      *
      * @param position The position to check.
      * @param region   The region defined by its vertices.
@@ -54,29 +78,12 @@ public class LngLatHandler implements LngLatHandling {
      */
     @Override
     public boolean isInRegion(LngLat position, NamedRegion region) {
-        LngLat[] vertices = region.vertices();
-        int n = vertices.length;
-        if (n < 3) {
-            return false;
+        CompiledRegion compiled = lastCompiledRegion;
+        if (compiled == null || compiled.getRegion() != region) {
+            compiled = new CompiledRegion(region);
+            lastCompiledRegion = compiled;
         }
-
-        // Ray-casting algorithm implementation
-        LngLat extreme = new LngLat(9999.99, position.lat());
-        int count = 0, i = 0;
-
-        do {
-            int next = (i + 1) % n;
-            if (doIntersect(vertices[i], vertices[next], position, extreme)) {
-                if (orientation(vertices[i], position, vertices[next]) == 0) {
-                    return onSegment(vertices[i], position, vertices[next]);
-                }
-                count++;
-            }
-            i = next;
-        } while (i != 0);
-
-        // Return true if count is odd, false otherwise
-        return (count % 2 == 1); // Same as (count%2 == 1)
+        return compiled.contains(position.lng(), position.lat());
     }
 
     /**
@@ -105,34 +112,6 @@ public class LngLatHandler implements LngLatHandling {
 
     // Private methods are used as utility functions within the class
 
-    /**
-     * Checks if the given point q lies on the line segment pr.
-     *
-     * @param p One end of the line segment.
-     * @param q The point to check.
-     * @param r The other end of the line segment.
-     * @return true if q lies on the line segment pr; false otherwise.
-     */
-    private boolean onSegment(LngLat p, LngLat q, LngLat r) {
-        // Check if q is within the bounds of the segment pr
-        return q.lng() <= Math.max(p.lng(), r.lng()) && q.lng() >= Math.min(p.lng(), r.lng()) &&
-                q.lat() <= Math.max(p.lat(), r.lat()) && q.lat() >= Math.min(p.lat(), r.lat());
-    }
-
-    /**
-     * Determines the orientation of the triplet (p, q, r).
-     *
-     * @param p First point.
-     * @param q Second point.
-     * @param r Third point.
-     * @return 0 if p, q, r are collinear; 1 if clockwise; 2 if counterclockwise.
-     */
-    private int orientation(LngLat p, LngLat q, LngLat r) {
-        double val = (q.lat() - p.lat()) * (r.lng() - q.lng()) - (q.lng() - p.lng()) * (r.lat() - q.lat());
-        if (val == 0) return 0; // Collinear
-        return (val > 0) ? 1 : 2; // Clockwise or Counterclockwise
-    }
-
     /**
      * Checks if line segments p1q1 and p2q2 intersect.
      *
@@ -143,18 +122,37 @@ public class LngLatHandler implements LngLatHandling {
      * @return true if the line segments intersect; false otherwise.
      */
     private boolean doIntersect(LngLat p1, LngLat q1, LngLat p2, LngLat q2) {
+        return doIntersect(p1.lng(), p1.lat(), q1.lng(), q1.lat(), p2.lng(), p2.lat(), q2.lng(), q2.lat());
+    }
+
+    // Coordinate forms of the checks above, shared with NoFlyZoneIndex so both give identical answers.
+
+    static boolean onSegment(double pLng, double pLat, double qLng, double qLat, double rLng, double rLat) {
+        // Check if q is within the bounds of the segment pr
+        return qLng <= Math.max(pLng, rLng) && qLng >= Math.min(pLng, rLng) &&
+                qLat <= Math.max(pLat, rLat) && qLat >= Math.min(pLat, rLat);
+    }
+
+    static int orientation(double pLng, double pLat, double qLng, double qLat, double rLng, double rLat) {
+        double val = (qLat - pLat) * (rLng - qLng) - (qLng - pLng) * (rLat - qLat);
+        if (val == 0) return 0; // Collinear
+        return (val > 0) ? 1 : 2; // Clockwise or Counterclockwise
+    }
+
+    static boolean doIntersect(double p1Lng, double p1Lat, double q1Lng, double q1Lat,
+                               double p2Lng, double p2Lat, double q2Lng, double q2Lat) {
         // Orientation checks to determine intersection
-        int o1 = orientation(p1, q1, p2);
-        int o2 = orientation(p1, q1, q2);
-        int o3 = orientation(p2, q2, p1);
-        int o4 = orientation(p2, q2, q1);
+        int o1 = orientation(p1Lng, p1Lat, q1Lng, q1Lat, p2Lng, p2Lat);
+        int o2 = orientation(p1Lng, p1Lat, q1Lng, q1Lat, q2Lng, q2Lat);
+        int o3 = orientation(p2Lng, p2Lat, q2Lng, q2Lat, p1Lng, p1Lat);
+        int o4 = orientation(p2Lng, p2Lat, q2Lng, q2Lat, q1Lng, q1Lat);
 
         // General and special cases check
         if (o1 != o2 && o3 != o4) return true;
-        if (o1 == 0 && onSegment(p1, p2, q1)) return true;
-        if (o2 == 0 && onSegment(p1, q2, q1)) return true;
-        if (o3 == 0 && onSegment(p2, p1, q2)) return true;
-        if (o4 == 0 && onSegment(p2, q1, q2)) return true;
+        if (o1 == 0 && onSegment(p1Lng, p1Lat, p2Lng, p2Lat, q1Lng, q1Lat)) return true;
+        if (o2 == 0 && onSegment(p1Lng, p1Lat, q2Lng, q2Lat, q1Lng, q1Lat)) return true;
+        if (o3 == 0 && onSegment(p2Lng, p2Lat, p1Lng, p1Lat, q2Lng, q2Lat)) return true;
+        if (o4 == 0 && onSegment(p2Lng, p2Lat, q1Lng, q1Lat, q2Lng, q2Lat)) return true;
 
         return false; // No intersection
     }
@@ -177,10 +175,31 @@ public class LngLatHandler implements LngLatHandling {
             throw new IllegalArgumentException("Angle is not multiple of 22.5");
         }
 
-        // Calculate new longitude and latitude based on the angle
-        double newLng = startPosition.lng() + DRONE_MOVE_DISTANCE * Math.cos(Math.toRadians(angle));
-        double newLat = startPosition.lat() + DRONE_MOVE_DISTANCE * Math.sin(Math.toRadians(angle));
-        return new LngLat(newLng, newLat);
+        // Look up the change in longitude and latitude for the angle
+        int direction = (int) (angle / DIRECTION_STEP);
+        return new LngLat(startPosition.lng() + MOVE_LNG[direction], startPosition.lat() + MOVE_LAT[direction]);
+    }
+
+    /**
+     * Calculates the longitude after one move in a given direction, without allocating a position.
+     *
+     * @param lng       The current longitude.
+     * @param direction The direction of movement, from 0 (east) to 15, counter-clockwise in 22.5 degree steps.
+     * @return The longitude after moving.
+     */
+    public static double nextLng(double lng, int direction) {
+        return lng + MOVE_LNG[direction];
+    }
+
+    /**
+     * Calculates the latitude after one move in a given direction, without allocating a position.
+     *
+     * @param lat       The current latitude.
+     * @param direction The direction of movement, from 0 (east) to 15, counter-clockwise in 22.5 degree steps.
+     * @return The latitude after moving.
+     */
+    public static double nextLat(double lat, int direction) {
+        return lat + MOVE_LAT[direction];
     }
 
     /**
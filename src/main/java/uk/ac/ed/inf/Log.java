@@ -0,0 +1,203 @@
+package uk.ac.ed.inf;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Levelled logging for the application, written by a background thread so callers never wait on
+ * the console. DEBUG and INFO messages go to stdout and WARN and ERROR messages to stderr, in the
+ * order they were logged; programs whose stdout carries their replies send everything to stderr
+ * with setStderrOnly. The level is set with -Dpizzadronz.logLevel=DEBUG|INFO|WARN|ERROR and
+ * defaults to INFO. Messages below the level are dropped before they are built when logged with a
+ * Supplier, so hot loops can log at DEBUG for free when it is disabled; code building a message
+ * per item should also check isDebugEnabled first.
+ * Pending messages are written when the JVM exits, or earlier with flush.
+ */
+public final class Log {
+
+    /**
+     * Message levels, from least to most severe.
+     */
+    public enum Level { DEBUG, INFO, WARN, ERROR }
+
+    private static final Level LEVEL = parseLevel(System.getProperty("pizzadronz.logLevel"));
+
+    // Read once so the check in isDebugEnabled folds to a constant.
+    private static final boolean DEBUG_ENABLED = LEVEL == Level.DEBUG;
+
+    private record Entry(Level level, String message, Throwable error) {
+    }
+
+    // Messages waiting to be written; a full queue makes callers wait rather than lose messages.
+    private static final BlockingQueue<Entry> pending = new ArrayBlockingQueue<>(8192);
+
+    // Counts used by flush to wait for everything logged so far; the lock guards written.
+    private static final AtomicLong logged = new AtomicLong();
+    private static final Object lock = new Object();
+    private static long written;
+
+    private static volatile boolean stderrOnly;
+
+    static {
+        Thread writer = new Thread(Log::writeEntries, "log-writer");
+        writer.setDaemon(true);
+        writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(Log::flush, "log-flush"));
+    }
+
+    private Log() {
+    }
+
+    private static Level parseLevel(String level) {
+        if (level != null) {
+            for (Level candidate : Level.values()) {
+                if (candidate.name().equalsIgnoreCase(level.trim())) {
+                    return candidate;
+                }
+            }
+        }
+        return Level.INFO;
+    }
+
+    /**
+     * @return The lowest level that is written.
+     */
+    public static Level getLevel() {
+        return LEVEL;
+    }
+
+    /**
+     * @param stderrOnly true to write messages of every level to stderr, leaving stdout to the
+     *                   program; false to write DEBUG and INFO messages to stdout again.
+     */
+    public static void setStderrOnly(boolean stderrOnly) {
+        Log.stderrOnly = stderrOnly;
+    }
+
+    /**
+     * @return true if DEBUG messages are written.
+     */
+    public static boolean isDebugEnabled() {
+        return DEBUG_ENABLED;
+    }
+
+    /**
+     * @param message Builds the message; it is only called if DEBUG is enabled.
+     */
+    public static void debug(Supplier<String> message) {
+        if (DEBUG_ENABLED) {
+            log(Level.DEBUG, message.get(), null);
+        }
+    }
+
+    /**
+     * @param message The message.
+     */
+    public static void info(String message) {
+        log(Level.INFO, message, null);
+    }
+
+    /**
+     * @param message The message.
+     */
+    public static void warn(String message) {
+        log(Level.WARN, message, null);
+    }
+
+    /**
+     * @param message The message.
+     */
+    public static void error(String message) {
+        log(Level.ERROR, message, null);
+    }
+
+    /**
+     * @param message The message.
+     * @param error   The exception, whose stack trace is written after the message.
+     */
+    public static void error(String message, Throwable error) {
+        log(Level.ERROR, message, error);
+    }
+
+    /**
+     * Queues a message to be written if its level is enabled.
+     *
+     * @param level   The message's level.
+     * @param message The message.
+     * @param error   An exception to write the stack trace of, or null.
+     */
+    public static void log(Level level, String message, Throwable error) {
+        if (level.compareTo(LEVEL) < 0) {
+            return;
+        }
+        logged.incrementAndGet();
+        try {
+            pending.put(new Entry(level, message, error));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            // The message is written directly rather than lost.
+            write(new Entry(level, message, error));
+            markWritten(1);
+        }
+    }
+
+    /**
+     * Waits until every message logged so far has been written.
+     */
+    public static void flush() {
+        long target = logged.get();
+        synchronized (lock) {
+            boolean interrupted = false;
+            while (written < target) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // Runs on the writer thread: writes messages in batches, flushing the streams after each batch.
+    private static void writeEntries() {
+        List<Entry> batch = new ArrayList<>();
+        while (true) {
+            try {
+                batch.add(pending.take());
+            } catch (InterruptedException e) {
+                continue;
+            }
+            pending.drainTo(batch);
+            for (Entry entry : batch) {
+                write(entry);
+            }
+            System.out.flush();
+            System.err.flush();
+            markWritten(batch.size());
+            batch.clear();
+        }
+    }
+
+    private static void write(Entry entry) {
+        PrintStream out = stderrOnly || entry.level().compareTo(Level.WARN) >= 0 ? System.err : System.out;
+        out.println(entry.message());
+        if (entry.error() != null) {
+            entry.error().printStackTrace(out);
+        }
+    }
+
+    private static void markWritten(int count) {
+        synchronized (lock) {
+            written += count;
+            lock.notifyAll();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package uk.ac.ed.inf;
+
+import java.util.Arrays;
+
+/**
+ * A map from long keys to double values using open addressing with linear probing, so reading
+ * and writing an entry never allocates or boxes. Used by the A* search for the best known cost
+ * of each grid cell. This class is not thread-safe.
+ */
+public final class LongDoubleHashMap {
+    // Marks a free slot; the key itself is tracked separately so it can still be stored.
+    private static final long FREE = Long.MIN_VALUE;
+
+    private long[] keys;
+    private double[] values;
+    private int mask;
+    private int size;
+    private boolean containsFree;
+    private double freeValue;
+
+    /**
+     * Creates an empty map.
+     *
+     * @param expectedSize Number of entries the map should hold before it first grows.
+     */
+    public LongDoubleHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize, 4) * 2 - 1) << 1;
+        keys = new long[capacity];
+        values = new double[capacity];
+        Arrays.fill(keys, FREE);
+        mask = capacity - 1;
+    }
+
+    /**
+     * Spreads a key over the table. The multiplier is the 64-bit golden ratio, which mixes the
+     * packed column and row bits of a cell key into the high bits.
+     *
+     * @param key  The key.
+     * @param mask The table size minus one; the table size is a power of two.
+     * @return The first slot to probe.
+     */
+    static int slot(long key, int mask) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    /**
+     * @param key          The key to look up.
+     * @param defaultValue The value to return if the key is absent.
+     * @return The value for the key, or defaultValue if there is none.
+     */
+    public double get(long key, double defaultValue) {
+        if (key == FREE) {
+            return containsFree ? freeValue : defaultValue;
+        }
+        int slot = slot(key, mask);
+        while (keys[slot] != FREE) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Sets the value for a key, replacing any previous value.
+     *
+     * @param key   The key.
+     * @param value The value.
+     */
+    public void put(long key, double value) {
+        if (key == FREE) {
+            if (!containsFree) {
+                containsFree = true;
+                size++;
+            }
+            freeValue = value;
+            return;
+        }
+        int slot = slot(key, mask);
+        while (keys[slot] != FREE) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size > (mask + 1) / 2) {
+            grow();
+        }
+    }
+
+    /**
+     * @return The number of entries in the map.
+     */
+    public int size() {
+        return size;
+    }
+
+    // Doubles the table, keeping it at most half full so probe sequences stay short.
+    private void grow() {
+        long[] oldKeys = keys;
+        double[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new double[oldKeys.length * 2];
+        Arrays.fill(keys, FREE);
+        mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != FREE) {
+                int slot = slot(oldKeys[i], mask);
+                while (keys[slot] != FREE) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package uk.ac.ed.inf;
+
+import java.util.Arrays;
+
+/**
+ * A set of long values using open addressing with linear probing, so adding and looking up a
+ * value never allocates or boxes. Used by the A* search for the packed grid cell keys of
+ * visited lattice positions. This class is not thread-safe.
+ */
+public final class LongHashSet {
+    // Marks a free slot; the value itself is tracked separately so it can still be stored.
+    private static final long FREE = Long.MIN_VALUE;
+
+    private long[] slots;
+    private int mask;
+    private int size;
+    private boolean containsFree;
+
+    /**
+     * Creates an empty set.
+     *
+     * @param expectedSize Number of values the set should hold before it first grows.
+     */
+    public LongHashSet(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize, 4) * 2 - 1) << 1;
+        slots = new long[capacity];
+        Arrays.fill(slots, FREE);
+        mask = capacity - 1;
+    }
+
+    /**
+     * Adds a value to the set.
+     *
+     * @param value The value to add.
+     * @return true if the value was added; false if it was already present.
+     */
+    public boolean add(long value) {
+        if (value == FREE) {
+            if (containsFree) {
+                return false;
+            }
+            containsFree = true;
+            size++;
+            return true;
+        }
+        int slot = LongDoubleHashMap.slot(value, mask);
+        while (slots[slot] != FREE) {
+            if (slots[slot] == value) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = value;
+        if (++size > (mask + 1) / 2) {
+            grow();
+        }
+        return true;
+    }
+
+    /**
+     * @param value The value to look up.
+     * @return true if the set contains the value; false otherwise.
+     */
+    public boolean contains(long value) {
+        if (value == FREE) {
+            return containsFree;
+        }
+        int slot = LongDoubleHashMap.slot(value, mask);
+        while (slots[slot] != FREE) {
+            if (slots[slot] == value) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * @return The number of values in the set.
+     */
+    public int size() {
+        return size;
+    }
+
+    // Doubles the table, keeping it at most half full so probe sequences stay short.
+    private void grow() {
+        long[] old = slots;
+        slots = new long[old.length * 2];
+        Arrays.fill(slots, FREE);
+        mask = slots.length - 1;
+        for (long value : old) {
+            if (value != FREE) {
+                int slot = LongDoubleHashMap.slot(value, mask);
+                while (slots[slot] != FREE) {
+                    slot = (slot + 1) & mask;
+                }
+                slots[slot] = value;
+            }
+        }
+    }
+}
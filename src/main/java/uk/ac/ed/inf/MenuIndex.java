@@ -0,0 +1,140 @@
+package uk.ac.ed.inf;
+
+import uk.ac.ed.inf.ilp.data.Pizza;
+import uk.ac.ed.inf.ilp.data.Restaurant;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An index from pizzas to the restaurants that sell them, built once from the defined restaurants
+ * so an order's restaurant can be found without scanning every menu. Pizzas are looked up by name,
+ * and a pizza only matches a menu entry with the same name and price, as with Pizza.equals.
+ * Lookups do not allocate. The index is immutable and can be shared between threads.
+ */
+public final class MenuIndex {
+    private static final int[] NONE = new int[0];
+
+    private final Restaurant[] restaurants;
+
+    // For each pizza name, the restaurants selling it in ascending order and the price each charges.
+    private final Map<String, int[]> restaurantIds = new HashMap<>();
+    private final Map<String, int[]> prices = new HashMap<>();
+
+    /**
+     * @param restaurants The defined restaurants; a restaurant's id is its position in this array.
+     */
+    public MenuIndex(Restaurant[] restaurants) {
+        this.restaurants = restaurants;
+        for (int id = 0; id < restaurants.length; id++) {
+            for (Pizza pizza : restaurants[id].menu()) {
+                int[] ids = restaurantIds.getOrDefault(pizza.name(), NONE);
+                int[] charged = prices.getOrDefault(pizza.name(), NONE);
+                if (indexOf(ids, charged, id, pizza.priceInPence()) >= 0) {
+                    continue;
+                }
+                ids = append(ids, id);
+                charged = append(charged, pizza.priceInPence());
+                restaurantIds.put(pizza.name(), ids);
+                prices.put(pizza.name(), charged);
+            }
+        }
+    }
+
+    private static int[] append(int[] values, int value) {
+        int[] longer = new int[values.length + 1];
+        System.arraycopy(values, 0, longer, 0, values.length);
+        longer[values.length] = value;
+        return longer;
+    }
+
+    // Position of the restaurant's entry at this price, or -1 if it does not sell the pizza at that price.
+    private static int indexOf(int[] ids, int[] charged, int id, int price) {
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] == id && charged[i] == price) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return The restaurants this index was built from.
+     */
+    public Restaurant[] getRestaurants() {
+        return restaurants;
+    }
+
+    /**
+     * @param pizza      The pizza to look up.
+     * @param restaurant The id of a restaurant.
+     * @return true if the restaurant's menu has the pizza at the same price.
+     */
+    public boolean sells(Pizza pizza, int restaurant) {
+        int[] ids = restaurantIds.get(pizza.name());
+        return ids != null && indexOf(ids, prices.get(pizza.name()), restaurant, pizza.priceInPence()) >= 0;
+    }
+
+    /**
+     * Finds the first restaurant, in the order given to the index, whose menu has every pizza.
+     *
+     * @param pizzas The pizzas in an order.
+     * @return The restaurant's id, or -1 if no restaurant sells them all.
+     */
+    public int findRestaurant(Pizza[] pizzas) {
+        if (pizzas.length == 0) {
+            return restaurants.length > 0 ? 0 : -1;
+        }
+        int[] ids = restaurantIds.get(pizzas[0].name());
+        if (ids == null) {
+            return -1;
+        }
+        int[] charged = prices.get(pizzas[0].name());
+        for (int i = 0; i < ids.length; i++) {
+            if (charged[i] == pizzas[0].priceInPence() && sellsAll(pizzas, ids[i])) {
+                return ids[i];
+            }
+        }
+        return -1;
+    }
+
+    private boolean sellsAll(Pizza[] pizzas, int restaurant) {
+        for (int i = 1; i < pizzas.length; i++) {
+            if (!sells(pizzas[i], restaurant)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Counts the restaurants selling at least one of the pizzas, stopping at two.
+     *
+     * @param pizzas The pizzas in an order.
+     * @return 0, 1, or 2 if two or more restaurants sell some of the pizzas.
+     */
+    public int countRestaurants(Pizza[] pizzas) {
+        if (pizzas.length == 0) {
+            return Math.min(restaurants.length, 2);
+        }
+        int first = -1;
+        for (Pizza pizza : pizzas) {
+            int[] ids = restaurantIds.get(pizza.name());
+            if (ids == null) {
+                continue;
+            }
+            int[] charged = prices.get(pizza.name());
+            for (int i = 0; i < ids.length; i++) {
+                if (charged[i] != pizza.priceInPence()) {
+                    continue;
+                }
+                if (first < 0) {
+                    first = ids[i];
+                } else if (ids[i] != first) {
+                    return 2;
+                }
+            }
+        }
+        return first < 0 ? 0 : 1;
+    }
+}
@@ -0,0 +1,268 @@
+package uk.ac.ed.inf;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A process-wide registry of counters and histograms describing a planning run, so the time and
+ * work in each part of the run can be dumped as JSON at the end. Counters and histograms are
+ * created on first use and are cheap enough to update on every order and route; hot code should
+ * keep the Counter or Histogram in a field rather than look it up by name each time.
+ */
+public final class Metrics {
+    private static final JsonFactory jsonFactory = new JsonFactory();
+
+    private static final Map<String, Counter> counters = new ConcurrentSkipListMap<>();
+    private static final Map<String, Histogram> histograms = new ConcurrentSkipListMap<>();
+
+    private Metrics() {
+    }
+
+    /**
+     * @param name The counter's name.
+     * @return The counter with this name, created if it does not exist.
+     */
+    public static Counter counter(String name) {
+        return counters.computeIfAbsent(name, key -> new Counter());
+    }
+
+    /**
+     * @param name The histogram's name; by convention it ends with the unit of its values.
+     * @return The histogram with this name, created if it does not exist.
+     */
+    public static Histogram histogram(String name) {
+        return histograms.computeIfAbsent(name, key -> new Histogram());
+    }
+
+    /**
+     * Zeroes every counter and histogram. Counters and histograms held in fields stay registered.
+     */
+    public static void reset() {
+        counters.values().forEach(Counter::reset);
+        histograms.values().forEach(Histogram::reset);
+    }
+
+    /**
+     * @return Every counter and histogram as a JSON object, with names in alphabetical order.
+     */
+    public static String toJson() {
+        Writer out = new StringWriter();
+        try (JsonGenerator generator = jsonFactory.createGenerator(out)) {
+            write(generator);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not write metrics", e);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Writes every counter and histogram to a JSON file, as a ResultFile so the file only appears once complete.
+     *
+     * @param path The file to write; it is created or overwritten.
+     * @throws IOException if an I/O error occurs.
+     */
+    public static void writeJson(Path path) throws IOException {
+        try (ResultFile file = ResultFile.create(path)) {
+            try (JsonGenerator generator = jsonFactory.createGenerator(file.getOutputStream(), JsonEncoding.UTF8)) {
+                write(generator);
+            }
+            file.commit();
+        }
+    }
+
+    private static void write(JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        generator.writeObjectFieldStart("counters");
+        for (Map.Entry<String, Counter> counter : counters.entrySet()) {
+            generator.writeNumberField(counter.getKey(), counter.getValue().get());
+        }
+        generator.writeEndObject();
+        generator.writeObjectFieldStart("histograms");
+        for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+            Histogram histogram = entry.getValue();
+            generator.writeObjectFieldStart(entry.getKey());
+            generator.writeNumberField("count", histogram.getCount());
+            generator.writeNumberField("min", histogram.getMin());
+            generator.writeNumberField("mean", histogram.getMean());
+            generator.writeNumberField("p50", histogram.getPercentile(50));
+            generator.writeNumberField("p90", histogram.getPercentile(90));
+            generator.writeNumberField("p99", histogram.getPercentile(99));
+            generator.writeNumberField("max", histogram.getMax());
+            generator.writeEndObject();
+        }
+        generator.writeEndObject();
+        generator.writeEndObject();
+    }
+
+    /**
+     * A count that many threads can add to without contention.
+     */
+    public static final class Counter {
+        private final LongAdder value = new LongAdder();
+
+        private Counter() {
+        }
+
+        public void increment() {
+            value.increment();
+        }
+
+        /**
+         * @param amount The amount to add.
+         */
+        public void add(long amount) {
+            value.add(amount);
+        }
+
+        /**
+         * @return The current count.
+         */
+        public long get() {
+            return value.sum();
+        }
+
+        private void reset() {
+            value.reset();
+        }
+    }
+
+    /**
+     * A histogram of non-negative values in log-linear buckets, as in HDR histograms: each power of
+     * two is split into 16 buckets, so percentiles are exact below 16 and within 1/16 above that.
+     * Recording a value is a few arithmetic operations and one atomic increment.
+     */
+    public static final class Histogram {
+        // Each power of two above SUB_BUCKETS is split into this many buckets.
+        private static final int SUB_BITS = 4;
+        private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+        // Enough groups of buckets for every non-negative long.
+        private static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+        private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+        private final AtomicLong max = new AtomicLong();
+
+        private Histogram() {
+        }
+
+        /**
+         * @param value The value to record; negative values are recorded as 0.
+         */
+        public void record(long value) {
+            value = Math.max(value, 0);
+            buckets.incrementAndGet(bucket(value));
+            count.increment();
+            sum.add(value);
+            if (value < min.get()) {
+                min.accumulateAndGet(value, Math::min);
+            }
+            if (value > max.get()) {
+                max.accumulateAndGet(value, Math::max);
+            }
+        }
+
+        /**
+         * Records the time since a start time.
+         *
+         * @param startNanos The start time, from System.nanoTime.
+         */
+        public void recordSince(long startNanos) {
+            record(System.nanoTime() - startNanos);
+        }
+
+        static int bucket(long value) {
+            if (value < SUB_BUCKETS) {
+                return (int) value;
+            }
+            int highestBit = 63 - Long.numberOfLeadingZeros(value);
+            int group = highestBit - SUB_BITS + 1;
+            int sub = (int) (value >>> (highestBit - SUB_BITS)) & (SUB_BUCKETS - 1);
+            return group * SUB_BUCKETS + sub;
+        }
+
+        // The largest value that falls in a bucket.
+        static long highestValue(int bucket) {
+            int group = bucket / SUB_BUCKETS;
+            int sub = bucket % SUB_BUCKETS;
+            if (group == 0) {
+                return sub;
+            }
+            long lowest = (long) (SUB_BUCKETS + sub) << (group - 1);
+            return lowest + (1L << (group - 1)) - 1;
+        }
+
+        /**
+         * @return The number of values recorded.
+         */
+        public long getCount() {
+            return count.sum();
+        }
+
+        /**
+         * @return The smallest value recorded, or 0 if there are none.
+         */
+        public long getMin() {
+            return getCount() == 0 ? 0 : min.get();
+        }
+
+        /**
+         * @return The largest value recorded, or 0 if there are none.
+         */
+        public long getMax() {
+            return max.get();
+        }
+
+        /**
+         * @return The mean of the values recorded, or 0 if there are none.
+         */
+        public double getMean() {
+            long n = getCount();
+            return n == 0 ? 0 : (double) sum.sum() / n;
+        }
+
+        /**
+         * @param percentile The percentile, from 0 to 100.
+         * @return The highest value in the bucket holding that percentile, capped at the largest
+         * value recorded, or 0 if there are none.
+         */
+        public long getPercentile(double percentile) {
+            long n = getCount();
+            if (n == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100 * n));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += buckets.get(i);
+                if (seen >= rank) {
+                    return Math.min(highestValue(i), getMax());
+                }
+            }
+            return getMax();
+        }
+
+        private void reset() {
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets.set(i, 0);
+            }
+            count.reset();
+            sum.reset();
+            min.set(Long.MAX_VALUE);
+            max.set(0);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package uk.ac.ed.inf;
+
+import uk.ac.ed.inf.ilp.data.LngLat;
+import uk.ac.ed.inf.ilp.data.NamedRegion;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static uk.ac.ed.inf.ilp.constant.SystemConstants.DRONE_MOVE_DISTANCE;
+
+/**
+ * Uniform grid over the edges of the no-fly zones. Each cell lists the edges whose bounding box
+ * overlaps it, so a move only has to be tested against the few edges near it.
+ * Gives exactly the same answers as LngLatHandler.pathGoesThroughNoFlyZones.
+ */
+public class NoFlyZoneIndex {
+    // Upper bound on the number of cells along each axis.
+    private static final int MAX_CELLS_PER_AXIS = 256;
+
+    // Edge end points, four values (startLng, startLat, endLng, endLat) per edge.
+    private final double[] edges;
+
+    // Edge indexes per cell, row by row.
+    private final int[][] cells;
+
+    private final double minLng;
+    private final double minLat;
+    private final double maxLng;
+    private final double maxLat;
+    private final double cellSize;
+    private final int columns;
+    private final int rows;
+
+    /**
+     * Builds the index over every edge of the given no-fly zones.
+     *
+     * @param noFlyZones Array of NamedRegion objects representing No-Fly Zones.
+     */
+    public NoFlyZoneIndex(NamedRegion[] noFlyZones) {
+        List<double[]> edgeList = new ArrayList<>();
+        double lowLng = Double.MAX_VALUE, lowLat = Double.MAX_VALUE;
+        double highLng = -Double.MAX_VALUE, highLat = -Double.MAX_VALUE;
+        for (NamedRegion noFlyZone : noFlyZones) {
+            LngLat[] vertices = noFlyZone.vertices();
+            int n = vertices.length;
+            for (int i = 0; i < n; i++) {
+                LngLat start = vertices[i];
+                LngLat end = vertices[(i + 1) % n];
+                edgeList.add(new double[]{start.lng(), start.lat(), end.lng(), end.lat()});
+                lowLng = Math.min(lowLng, Math.min(start.lng(), end.lng()));
+                lowLat = Math.min(lowLat, Math.min(start.lat(), end.lat()));
+                highLng = Math.max(highLng, Math.max(start.lng(), end.lng()));
+                highLat = Math.max(highLat, Math.max(start.lat(), end.lat()));
+            }
+        }
+
+        edges = new double[edgeList.size() * 4];
+        for (int i = 0; i < edgeList.size(); i++) {
+            System.arraycopy(edgeList.get(i), 0, edges, i * 4, 4);
+        }
+
+        if (edgeList.isEmpty()) {
+            minLng = minLat = maxLng = maxLat = 0;
+            cellSize = 1;
+            columns = rows = 0;
+            cells = new int[0][];
+            return;
+        }
+
+        minLng = lowLng;
+        minLat = lowLat;
+        maxLng = highLng;
+        maxLat = highLat;
+        // Cells about one move wide keep each query to a handful of cells, within the size limit.
+        double extent = Math.max(maxLng - minLng, maxLat - minLat);
+        cellSize = Math.max(DRONE_MOVE_DISTANCE, extent / MAX_CELLS_PER_AXIS);
+        columns = (int) ((maxLng - minLng) / cellSize) + 1;
+        rows = (int) ((maxLat - minLat) / cellSize) + 1;
+
+        List<List<Integer>> cellEdges = new ArrayList<>(columns * rows);
+        for (int i = 0; i < columns * rows; i++) {
+            cellEdges.add(new ArrayList<>());
+        }
+        for (int e = 0; e < edgeList.size(); e++) {
+            int o = e * 4;
+            int fromColumn = column(Math.min(edges[o], edges[o + 2]));
+            int toColumn = column(Math.max(edges[o], edges[o + 2]));
+            int fromRow = row(Math.min(edges[o + 1], edges[o + 3]));
+            int toRow = row(Math.max(edges[o + 1], edges[o + 3]));
+            for (int r = fromRow; r <= toRow; r++) {
+                for (int c = fromColumn; c <= toColumn; c++) {
+                    cellEdges.get(r * columns + c).add(e);
+                }
+            }
+        }
+        cells = new int[cellEdges.size()][];
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = cellEdges.get(i).stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    /**
+     * Determines whether a possible path between two points goes through a No-Fly Zone.
+     *
+     * @param p1 LngLat of the start of the possible path
+     * @param p2 LngLat of the end of the possible path
+     * @return True if the path between p1 and p2 goes through a No-Fly Zone edge
+     */
+    public boolean pathGoesThroughNoFlyZones(LngLat p1, LngLat p2) {
+        return pathGoesThroughNoFlyZones(p1.lng(), p1.lat(), p2.lng(), p2.lat());
+    }
+
+    /**
+     * Determines whether a possible path between two points goes through a No-Fly Zone.
+     *
+     * @return True if the path between (lng1, lat1) and (lng2, lat2) goes through a No-Fly Zone edge
+     */
+    public boolean pathGoesThroughNoFlyZones(double lng1, double lat1, double lng2, double lat2) {
+        double lowLng = Math.min(lng1, lng2), highLng = Math.max(lng1, lng2);
+        double lowLat = Math.min(lat1, lat2), highLat = Math.max(lat1, lat2);
+        // Paths entirely outside the indexed area cannot touch any edge.
+        if (cells.length == 0 || highLng < minLng || lowLng > maxLng || highLat < minLat || lowLat > maxLat) {
+            return false;
+        }
+
+        int fromColumn = column(lowLng), toColumn = column(highLng);
+        int fromRow = row(lowLat), toRow = row(highLat);
+        for (int r = fromRow; r <= toRow; r++) {
+            for (int c = fromColumn; c <= toColumn; c++) {
+                for (int e : cells[r * columns + c]) {
+                    int o = e * 4;
+                    if (LngLatHandler.doIntersect(lng1, lat1, lng2, lat2, edges[o], edges[o + 1], edges[o + 2], edges[o + 3])) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private int column(double lng) {
+        return Math.min(columns - 1, Math.max(0, (int) ((lng - minLng) / cellSize)));
+    }
+
+    private int row(double lat) {
+        return Math.min(rows - 1, Math.max(0, (int) ((lat - minLat) / cellSize)));
+    }
+}
@@ -2,6 +2,7 @@ package uk.ac.ed.inf;
 
 import uk.ac.ed.inf.ilp.data.LngLat;
 
+import java.util.Objects;
 import java.util.Optional;
 
 /**
@@ -10,8 +11,8 @@ import java.util.Optional;
 public final class Node {
     private final LngLat start;
     private final LngLat end;
-    private double angle;
-    private Optional<String> orderNo;
+    private final double angle;
+    private final Optional<String> orderNo;
 
     /**
      * Constructs a Move with start and end coordinates, angle, and order number.
@@ -57,12 +58,20 @@ public final class Node {
         return orderNo;
     }
 
-    public void setOrderNo(String orderNo) {
-        this.orderNo = Optional.ofNullable(orderNo);
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Node)) return false;
+        Node other = (Node) o;
+        return Double.compare(angle, other.angle) == 0 &&
+                Objects.equals(start, other.start) &&
+                Objects.equals(end, other.end) &&
+                Objects.equals(orderNo, other.orderNo);
     }
 
-    public void setAngle(double angle) {
-        this.angle = angle;
+    @Override
+    public int hashCode() {
+        return Objects.hash(start, end, angle, orderNo);
     }
 
     @Override
@@ -10,15 +10,30 @@ import uk.ac.ed.inf.ilp.data.Restaurant;
 import uk.ac.ed.inf.ilp.interfaces.OrderValidation;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
 
 /**
  * Class for validating pizza orders.
  */
 public class OrderValidator implements OrderValidation {
+    // Below this many orders, validating in parallel costs more than it saves.
+    private static final int PARALLEL_THRESHOLD = 256;
+
+    // Orders validated with each code, such as orders.validated.NO_ERROR, indexed by the code's ordinal.
+    private static final Metrics.Counter[] CODE_COUNTERS = Arrays.stream(OrderValidationCode.values())
+            .map(code -> Metrics.counter("orders.validated." + code))
+            .toArray(Metrics.Counter[]::new);
+
     /**
      * Validates an order based on several criteria such as credit card information,
-     * pizza count, total cost, and availability in restaurants.
+     * pizza count, total cost, and availability in restaurants. The restaurants' menus are indexed
+     * for every call; callers validating many orders should index them once and pass the MenuIndex.
      *
      * @param orderToValidate The order to be validated.
      * @param definedRestaurants The list of available restaurants.
@@ -26,6 +41,25 @@ public class OrderValidator implements OrderValidation {
      */
     @Override
     public Order validateOrder(Order orderToValidate, Restaurant[] definedRestaurants) {
+        return validateOrder(orderToValidate, new MenuIndex(definedRestaurants));
+    }
+
+    /**
+     * Validates an order based on several criteria such as credit card information,
+     * pizza count, total cost, and availability in restaurants.
+     *
+     * @param orderToValidate The order to be validated.
+     * @param menuIndex The index of the available restaurants' menus.
+     * @return The validated order with updated status and validation code.
+     */
+    public Order validateOrder(Order orderToValidate, MenuIndex menuIndex) {
+        check(orderToValidate, menuIndex);
+        CODE_COUNTERS[orderToValidate.getOrderValidationCode().ordinal()].increment();
+        return orderToValidate;
+    }
+
+    // Sets the order's status and validation code.
+    private Order check(Order orderToValidate, MenuIndex menuIndex) {
         // Retrieve pizzas in order and credit card information
         Pizza[] pizzaList = orderToValidate.getPizzasInOrder();
         CreditCardInformation cardInformation = orderToValidate.getCreditCardInformation();
@@ -37,49 +71,10 @@ public class OrderValidator implements OrderValidation {
             return orderToValidate;
         }
 
-        // Validate the CVV of the credit card (must be a 3 digit number)
-        if (!cardInformation.getCvv().matches("[0-9]{3}")){
-            orderToValidate.setOrderValidationCode(OrderValidationCode.CVV_INVALID);
-            orderToValidate.setOrderStatus(OrderStatus.INVALID);
-            return orderToValidate;
-        }
-
-        // Validate the credit card number using Luhn's algorithm
-        String cardNumber = cardInformation.getCreditCardNumber();
-        if (!cardNumber.matches("[0-9]{16}")) {
-            orderToValidate.setOrderValidationCode(OrderValidationCode.CARD_NUMBER_INVALID);
-            orderToValidate.setOrderStatus(OrderStatus.INVALID);
-            return orderToValidate;
-        }
-        int nDigits = cardNumber.length();
-        int nSum = 0;
-        boolean isSecond = false;
-        for (int i = nDigits - 1; i >= 0; i--) {
-            int d = cardNumber.charAt(i) - '0';
-            if (isSecond) d *= 2;
-            nSum += d / 10;
-            nSum += d % 10;
-            isSecond = !isSecond;
-        }
-        if (nSum % 10 != 0) {
-            orderToValidate.setOrderValidationCode(OrderValidationCode.CARD_NUMBER_INVALID);
-            orderToValidate.setOrderStatus(OrderStatus.INVALID);
-            return orderToValidate;
-        }
-
-        // Check if the credit card has expired
-        String cardExpiry = cardInformation.getCreditCardExpiry();
-        int month = Integer.parseInt(cardExpiry.substring(0, 2));
-        int year = Integer.parseInt("20" + cardExpiry.substring(3, 5));
-        if (month > 11) {
-            month = 1;
-            year += 1;
-        } else {
-            month += 1;
-        }
-        LocalDate expiryDate = LocalDate.of(year, month, 1);
-        if (!orderToValidate.getOrderDate().isBefore(expiryDate)) {
-            orderToValidate.setOrderValidationCode(OrderValidationCode.EXPIRY_DATE_INVALID);
+        // Validate the CVV, card number and expiry date of the credit card
+        OrderValidationCode cardCode = checkCard(cardInformation, orderToValidate.getOrderDate());
+        if (cardCode != OrderValidationCode.NO_ERROR) {
+            orderToValidate.setOrderValidationCode(cardCode);
             orderToValidate.setOrderStatus(OrderStatus.INVALID);
             return orderToValidate;
         }
@@ -94,22 +89,14 @@ public class OrderValidator implements OrderValidation {
         }
 
         // Check if the ordered pizzas are available in the defined restaurants
-        int counter = 0;
-        Restaurant currRestaurant = null;
-        for (Restaurant restaurant : definedRestaurants) {
-            long intersectionLength = Arrays.stream(pizzaList).filter(p -> Arrays.asList(restaurant.menu()).contains(p)).count();
-            if (intersectionLength == pizzaList.length) {
-                counter++;
-                currRestaurant = restaurant;
-            } else if (intersectionLength > 0) {
-                counter++;
-            }
-        }
-        if (counter > 1) {
+        if (menuIndex.countRestaurants(pizzaList) > 1) {
             orderToValidate.setOrderValidationCode(OrderValidationCode.PIZZA_FROM_MULTIPLE_RESTAURANTS);
             orderToValidate.setOrderStatus(OrderStatus.INVALID);
             return orderToValidate;
-        } else if (currRestaurant == null) {
+        }
+        int restaurantId = menuIndex.findRestaurant(pizzaList);
+        Restaurant currRestaurant = restaurantId < 0 ? null : menuIndex.getRestaurants()[restaurantId];
+        if (currRestaurant == null) {
             orderToValidate.setOrderValidationCode(OrderValidationCode.PIZZA_NOT_DEFINED);
             orderToValidate.setOrderStatus(OrderStatus.INVALID);
             return orderToValidate;
@@ -124,4 +111,152 @@ public class OrderValidator implements OrderValidation {
         orderToValidate.setOrderStatus(OrderStatus.VALID_BUT_NOT_DELIVERED);
         return orderToValidate;
     }
+
+    /**
+     * Validates many orders at once, in parallel when there are enough of them.
+     *
+     * @param orders      The orders to validate; their status and validation code are updated.
+     * @param restaurants The list of available restaurants.
+     * @return The orders that are not invalid and the number of orders with each validation code.
+     */
+    public ValidationResult validateAll(Order[] orders, Restaurant[] restaurants) {
+        return validateAll(orders, new MenuIndex(restaurants));
+    }
+
+    /**
+     * Validates many orders at once, in parallel when there are enough of them.
+     *
+     * @param orders    The orders to validate; their status and validation code are updated.
+     * @param menuIndex The index of the available restaurants' menus.
+     * @return The orders that are not invalid and the number of orders with each validation code.
+     */
+    public ValidationResult validateAll(Order[] orders, MenuIndex menuIndex) {
+        IntStream indices = IntStream.range(0, orders.length);
+        if (orders.length >= PARALLEL_THRESHOLD) {
+            indices = indices.parallel();
+        }
+        indices.forEach(i -> validateOrder(orders[i], menuIndex));
+
+        // Collected afterwards so the valid orders keep their original order
+        List<Order> validOrders = new ArrayList<>(orders.length);
+        int[] codeCounts = new int[OrderValidationCode.values().length];
+        for (Order order : orders) {
+            codeCounts[order.getOrderValidationCode().ordinal()]++;
+            if (order.getOrderStatus() != OrderStatus.INVALID) {
+                validOrders.add(order);
+            }
+        }
+        return new ValidationResult(validOrders, codeCounts);
+    }
+
+    /**
+     * The outcome of validating many orders.
+     */
+    public static final class ValidationResult {
+        private final List<Order> validOrders;
+        private final int[] codeCounts;
+
+        private ValidationResult(List<Order> validOrders, int[] codeCounts) {
+            this.validOrders = Collections.unmodifiableList(validOrders);
+            this.codeCounts = codeCounts;
+        }
+
+        /**
+         * @return The orders that are not invalid, in their original order.
+         */
+        public List<Order> getValidOrders() {
+            return validOrders;
+        }
+
+        /**
+         * @param code A validation code.
+         * @return The number of orders given that code.
+         */
+        public int getCount(OrderValidationCode code) {
+            return codeCounts[code.ordinal()];
+        }
+
+        /**
+         * @return The number of orders given each code, leaving out codes no order was given.
+         */
+        public Map<OrderValidationCode, Integer> getCodeCounts() {
+            Map<OrderValidationCode, Integer> counts = new EnumMap<>(OrderValidationCode.class);
+            for (OrderValidationCode code : OrderValidationCode.values()) {
+                if (codeCounts[code.ordinal()] > 0) {
+                    counts.put(code, codeCounts[code.ordinal()]);
+                }
+            }
+            return counts;
+        }
+
+        @Override
+        public String toString() {
+            return validOrders.size() + " valid " + getCodeCounts();
+        }
+    }
+
+    /**
+     * Checks credit card information without regular expressions or allocation. The CVV must be
+     * 3 digits and the card number 16 digits passing Luhn's algorithm, checked in the same pass
+     * over its digits. The card is valid until the end of the month in its MM/YY expiry date; an
+     * expiry date not in that form is invalid.
+     *
+     * @param card      The credit card information.
+     * @param orderDate The date of the order.
+     * @return CVV_INVALID, CARD_NUMBER_INVALID or EXPIRY_DATE_INVALID for the first check that
+     * fails, in that order, or NO_ERROR.
+     */
+    static OrderValidationCode checkCard(CreditCardInformation card, LocalDate orderDate) {
+        String cvv = card.getCvv();
+        if (cvv.length() != 3 || !isDigit(cvv.charAt(0)) || !isDigit(cvv.charAt(1)) || !isDigit(cvv.charAt(2))) {
+            return OrderValidationCode.CVV_INVALID;
+        }
+
+        // Luhn's algorithm, doubling every second digit from the right
+        String cardNumber = card.getCreditCardNumber();
+        if (cardNumber.length() != 16) {
+            return OrderValidationCode.CARD_NUMBER_INVALID;
+        }
+        int sum = 0;
+        for (int i = 15; i >= 0; i--) {
+            char c = cardNumber.charAt(i);
+            if (!isDigit(c)) {
+                return OrderValidationCode.CARD_NUMBER_INVALID;
+            }
+            int d = c - '0';
+            if ((i & 1) == 0) {
+                d *= 2;
+            }
+            sum += d / 10 + d % 10;
+        }
+        if (sum % 10 != 0) {
+            return OrderValidationCode.CARD_NUMBER_INVALID;
+        }
+
+        // Months above 11 roll over to January of the next year
+        String expiry = card.getCreditCardExpiry();
+        int month = twoDigits(expiry, 0);
+        int year = twoDigits(expiry, 3);
+        if (expiry.length() != 5 || expiry.charAt(2) != '/' || month < 0 || year < 0) {
+            return OrderValidationCode.EXPIRY_DATE_INVALID;
+        }
+        int expiryMonths = (2000 + year) * 12 + (month > 11 ? 12 : month);
+        int orderMonths = orderDate.getYear() * 12 + orderDate.getMonthValue() - 1;
+        if (orderMonths >= expiryMonths) {
+            return OrderValidationCode.EXPIRY_DATE_INVALID;
+        }
+        return OrderValidationCode.NO_ERROR;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    // The number in two digit characters at the given position, or -1 if they are not both digits.
+    private static int twoDigits(String s, int position) {
+        if (s.length() < position + 2 || !isDigit(s.charAt(position)) || !isDigit(s.charAt(position + 1))) {
+            return -1;
+        }
+        return (s.charAt(position) - '0') * 10 + s.charAt(position + 1) - '0';
+    }
 }
@@ -0,0 +1,62 @@
+package uk.ac.ed.inf;
+
+import uk.ac.ed.inf.ilp.data.NamedRegion;
+import uk.ac.ed.inf.ilp.data.Order;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Everything needed to plan routes around one set of regions: the route table and route store
+ * loaded from their files, and a route cache. Planning with a context reuses the routes found in
+ * earlier runs and earlier dates; a table or store that cannot be used is left out, and routes are
+ * planned without it. Closing the context closes the route store.
+ */
+public final class PlanningContext implements Closeable {
+    private final NamedRegion[] noFlyZones;
+    private final NamedRegion centralArea;
+    private final RouteTable routeTable;
+    private final RouteStore routeStore;
+    private final RouteCache routeCache;
+
+    private PlanningContext(NamedRegion[] noFlyZones, NamedRegion centralArea, RouteTable routeTable,
+                            RouteStore routeStore, RouteCache routeCache) {
+        this.noFlyZones = noFlyZones;
+        this.centralArea = centralArea;
+        this.routeTable = routeTable;
+        this.routeStore = routeStore;
+        this.routeCache = routeCache;
+    }
+
+    /**
+     * Loads the route table and opens the route store for the regions, from the files App names.
+     *
+     * @param noFlyZones  The no-fly zones.
+     * @param centralArea The central area.
+     * @param routeCache  Cache for planned routes, which may be shared with other contexts.
+     * @return The context.
+     */
+    public static PlanningContext open(NamedRegion[] noFlyZones, NamedRegion centralArea, RouteCache routeCache) {
+        RouteTable routeTable = RouteTable.load(Paths.get(App.ROUTE_TABLE_FILE), noFlyZones, centralArea).orElse(null);
+        RouteStore routeStore = RouteStore.open(Paths.get(App.ROUTE_STORE_FILE), noFlyZones, centralArea).orElse(null);
+        return new PlanningContext(noFlyZones, centralArea, routeTable, routeStore, routeCache);
+    }
+
+    /**
+     * @param menuIndex Index of the restaurants available for picking up orders.
+     * @param orders    List of orders to be delivered.
+     * @return An App planning the orders with this context's routes.
+     */
+    public App newApp(MenuIndex menuIndex, List<Order> orders) {
+        return new App(noFlyZones, centralArea, menuIndex, orders, routeTable, routeCache, routeStore);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (routeStore != null) {
+            routeStore.close();
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package uk.ac.ed.inf;
+
+import uk.ac.ed.inf.ilp.data.NamedRegion;
+import uk.ac.ed.inf.ilp.data.Order;
+import uk.ac.ed.inf.ilp.data.Restaurant;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+/**
+ * A long-running process that plans deliveries for one date after another without starting again.
+ * The regions, restaurants, route table, route store and route cache are loaded once and kept
+ * between dates, so only the orders are fetched for each date. The reference data is fetched again
+ * once it is older than the refresh interval, and the routes are only dropped if the no-fly zones
+ * or central area have changed.
+ * <p>
+ * Requests are lines of text, read from stdin or from connections to a local port:
+ * "plan YYYY-MM-DD" plans a date and writes its result files as App does, "stats" reports the
+ * route cache counters and "quit" ends the session. Each request gets one line in reply,
+ * starting with "OK" or "ERROR".
+ */
+public class PlanningService implements Closeable {
+
+    // How long reference data is used before it is fetched again, can be overridden with -Dpizzadronz.refreshMinutes=N.
+    private static final long REFRESH_MILLIS = Long.getLong("pizzadronz.refreshMinutes", 10) * 60_000;
+
+    private final String url;
+    private final long refreshMillis;
+    private final RouteCache routeCache = new RouteCache();
+
+    private PlanningContext context;
+    private MenuIndex menuIndex;
+    private long regionHash;
+    private long fetchedAt;
+    private int datesPlanned;
+
+    /**
+     * @param url The base URL of the REST service.
+     */
+    public PlanningService(String url) {
+        this(url, REFRESH_MILLIS);
+    }
+
+    /**
+     * @param url           The base URL of the REST service.
+     * @param refreshMillis How long reference data is used before it is fetched again.
+     */
+    public PlanningService(String url, long refreshMillis) {
+        this.url = url;
+        this.refreshMillis = refreshMillis;
+    }
+
+    /**
+     * Plans the deliveries for a date and writes its result files.
+     *
+     * @param date The date to plan, in the format YYYY-MM-DD.
+     * @return A summary of the run.
+     * @throws IllegalArgumentException if the date is not valid.
+     * @throws IOException              if the service cannot be reached or a file cannot be written.
+     * @throws InterruptedException     if the thread is interrupted while waiting for the service.
+     */
+    public synchronized PlanResult plan(String date) throws IOException, InterruptedException {
+        try {
+            LocalDate.parse(date);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Date must be in the format YYYY-MM-DD");
+        }
+        long start = System.nanoTime();
+
+        Order[] orders;
+        boolean refreshed = context == null || System.currentTimeMillis() - fetchedAt >= refreshMillis;
+        if (refreshed) {
+            // Fetch the reference data alongside the orders
+            RestService.ServiceData data = RestService.fetchAll(url, date);
+            update(data.noFlyZones(), data.centralArea(), data.restaurants());
+            orders = data.orders();
+        } else {
+            orders = RestService.restOrder(url, date);
+        }
+
+        List<Order> validOrders = App.validateOrders(orders, menuIndex);
+        App app = context.newApp(menuIndex, validOrders);
+        FlightPathBuffer paths = app.routeBuffer();
+        App.writeResultFiles(App.RESULT_DIR, date, orders, paths);
+        datesPlanned++;
+
+        return new PlanResult(date, orders.length, validOrders.size(), paths.size(), refreshed,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Takes newly fetched reference data, reloading the routes if the regions have changed.
+     *
+     * @param noFlyZones  The fetched no-fly zones.
+     * @param centralArea The fetched central area.
+     * @param restaurants The fetched restaurants.
+     * @throws IOException if the route store for the previous regions cannot be closed.
+     */
+    private void update(NamedRegion[] noFlyZones, NamedRegion centralArea, Restaurant[] restaurants) throws IOException {
+        long hash = RouteTable.regionHash(noFlyZones, centralArea);
+        if (context == null || hash != regionHash) {
+            if (context != null) {
+                close();
+                routeCache.clear();
+            }
+            context = PlanningContext.open(noFlyZones, centralArea, routeCache);
+            regionHash = hash;
+        }
+        this.menuIndex = new MenuIndex(restaurants);
+        fetchedAt = System.currentTimeMillis();
+    }
+
+    /**
+     * Answers requests read line by line until "quit" or the end of the input.
+     *
+     * @param in  The requests.
+     * @param out Where the replies are written.
+     * @return true if the session ended with "quit"; false if the input ended.
+     * @throws IOException if the requests cannot be read.
+     */
+    public boolean serve(BufferedReader in, PrintWriter out) throws IOException {
+        String line;
+        while ((line = in.readLine()) != null) {
+            String[] words = line.trim().split("\\s+");
+            if (words[0].isEmpty()) {
+                continue;
+            }
+            switch (words[0]) {
+                case "plan" -> {
+                    if (words.length != 2) {
+                        out.println("ERROR usage: plan YYYY-MM-DD");
+                        break;
+                    }
+                    try {
+                        out.println("OK " + plan(words[1]));
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        out.println("ERROR interrupted");
+                        out.flush();
+                        return false;
+                    } catch (Exception e) {
+                        out.println("ERROR " + e.getMessage());
+                    }
+                }
+                case "stats" -> out.println("OK " + stats());
+                case "quit" -> {
+                    out.println("OK bye");
+                    out.flush();
+                    return true;
+                }
+                default -> out.println("ERROR unknown command: " + words[0]);
+            }
+            out.flush();
+        }
+        return false;
+    }
+
+    /**
+     * @return The number of dates planned and the route cache counters.
+     */
+    public String stats() {
+        return "dates=" + datesPlanned + " cached=" + routeCache.size() + " hits=" + routeCache.getHitCount()
+                + " misses=" + routeCache.getMissCount() + " evictions=" + routeCache.getEvictionCount();
+    }
+
+    /**
+     * @return The route cache shared by every date.
+     */
+    public RouteCache getRouteCache() {
+        return routeCache;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (context != null) {
+            context.close();
+            context = null;
+        }
+    }
+
+    /**
+     * Summary of the deliveries planned for one date.
+     *
+     * @param date       The date planned.
+     * @param orders     The number of orders fetched.
+     * @param valid      The number of orders that were not invalid.
+     * @param moves      The number of moves in the flight path.
+     * @param refreshed  Whether the reference data was fetched for this date.
+     * @param millis     Time taken, in milliseconds.
+     */
+    public record PlanResult(String date, int orders, int valid, int moves, boolean refreshed, long millis) {
+        @Override
+        public String toString() {
+            return date + " orders=" + orders + " valid=" + valid + " moves=" + moves
+                    + " refreshed=" + refreshed + " ms=" + millis;
+        }
+    }
+
+    /**
+     * Runs the service.
+     *
+     * @param args The URL of the REST service, and optionally a port to listen on. Without a port,
+     *             requests are read from stdin.
+     */
+    public static void main(String[] args) {
+        if (args.length < 1 || args.length > 2) {
+            Log.error("Usage: PlanningService URL [port]");
+            return;
+        }
+        if (args.length == 1) {
+            // Stdout carries the replies, one line per request
+            Log.setStderrOnly(true);
+        }
+        try (PlanningService service = new PlanningService(args[0])) {
+            if (args.length == 1) {
+                service.serve(new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8)),
+                        new PrintWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), true));
+                return;
+            }
+
+            // Clients are served one at a time on the loopback interface, until one sends "quit"
+            try (ServerSocket server = new ServerSocket(Integer.parseInt(args[1]), 50, InetAddress.getLoopbackAddress())) {
+                Log.info("Listening on port " + server.getLocalPort());
+                boolean quit = false;
+                while (!quit) {
+                    try (Socket client = server.accept()) {
+                        quit = service.serve(
+                                new BufferedReader(new InputStreamReader(client.getInputStream(), StandardCharsets.UTF_8)),
+                                new PrintWriter(new OutputStreamWriter(client.getOutputStream(), StandardCharsets.UTF_8)));
+                    } catch (IOException e) {
+                        Log.warn("Connection failed: " + e.getMessage());
+                    }
+                }
+            }
+        } catch (NumberFormatException e) {
+            Log.error("Invalid port: " + args[1]);
+        } catch (Exception e) {
+            Log.error("Planning service failed", e);
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package uk.ac.ed.inf;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
@@ -8,18 +10,37 @@ import uk.ac.ed.inf.ilp.data.Restaurant;
 import uk.ac.ed.inf.ilp.data.Order;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 
 /**
  * The RestService class provides static methods for interacting with a REST web service.
- * It includes functionality for sending HTTP requests and parsing responses.
+ * It includes functionality for sending HTTP requests and parsing responses, either blocking
+ * or asynchronously so that independent resources can be fetched in parallel.
  */
 public class RestService {
     private static final HttpClient Client = HttpClient.newHttpClient();
+
+    // Reads streamed response bodies, which blocks until the whole body has arrived, so the
+    // HttpClient's own threads are left free to receive the other responses
+    private static final Executor BodyReaders = Executors.newCachedThreadPool(task -> {
+        Thread thread = new Thread(task, "rest-body-reader");
+        thread.setDaemon(true);
+        return thread;
+    });
     private static final ObjectMapper objectMapper = new ObjectMapper();
 
     static {
@@ -27,6 +48,19 @@ public class RestService {
         objectMapper.enable(DeserializationFeature.ACCEPT_SINGLE_VALUE_AS_ARRAY);
     }
 
+    /**
+     * Builds an HTTP GET request for the specified URI.
+     *
+     * @param uri The URI to send the request to.
+     * @return The request.
+     */
+    private static HttpRequest request(String uri) {
+        return HttpRequest.newBuilder()
+                .uri(URI.create(uri))
+                .timeout(Duration.ofMinutes(1)) // Set a timeout, e.g., 1 minute
+                .build();
+    }
+
     /**
      * Sends an HTTP GET request to the specified URI.
      *
@@ -36,17 +70,68 @@ public class RestService {
      * @throws InterruptedException If the operation is interrupted.
      */
     private static String sendRequest(String uri) throws IOException, InterruptedException {
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(uri))
-                .timeout(Duration.ofMinutes(1)) // Set a timeout, e.g., 1 minute
-                .build();
-        HttpResponse<String> response = Client.send(request, HttpResponse.BodyHandlers.ofString());
+        long start = System.nanoTime();
+        HttpResponse<String> response = Client.send(request(uri), HttpResponse.BodyHandlers.ofString());
+        latency(uri).recordSince(start);
         if (response.statusCode() != 200) {
             throw new IOException("Response code error: " + response.statusCode() + " for " + uri);
         }
         return response.body();
     }
 
+    /**
+     * Sends an asynchronous HTTP GET request to the specified URI.
+     * The future fails with an IOException if the response code is not 200.
+     *
+     * @param uri The URI to send the request to.
+     * @return A future of the response body as a string.
+     */
+    private static CompletableFuture<String> sendRequestAsync(String uri) {
+        long start = System.nanoTime();
+        return Client.sendAsync(request(uri), HttpResponse.BodyHandlers.ofString())
+                .thenApply(response -> {
+                    latency(uri).recordSince(start);
+                    if (response.statusCode() != 200) {
+                        throw new CompletionException(new IOException("Response code error: " + response.statusCode() + " for " + uri));
+                    }
+                    return response.body();
+                });
+    }
+
+    /**
+     * The latency histogram for an endpoint, named after the last segment of the URI that is not a
+     * date, such as rest.orders.latencyNanos. Order requests read as a stream are timed until the
+     * response starts, not until every order has been read.
+     *
+     * @param uri The URI of the request.
+     * @return The histogram.
+     */
+    private static Metrics.Histogram latency(String uri) {
+        String path = URI.create(uri).getPath();
+        int end = path.length();
+        int start = path.lastIndexOf('/') + 1;
+        if (start > 1 && start < end && Character.isDigit(path.charAt(start))) {
+            end = start - 1;
+            start = path.lastIndexOf('/', end - 1) + 1;
+        }
+        return Metrics.histogram("rest." + path.substring(start, end) + ".latencyNanos");
+    }
+
+    /**
+     * Parses a response body, wrapping parse errors so they propagate through a future.
+     *
+     * @param response The response body.
+     * @param type The type to parse the body into.
+     * @return The parsed object.
+     */
+    private static <T> T parse(String response, Class<T> type) {
+        try {
+            return objectMapper.readValue(response, type);
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+    }
+
     /**
      * Checks if the REST service is alive.
      *
@@ -84,9 +169,63 @@ public class RestService {
      * @throws InterruptedException If the operation is interrupted.
      */
     public static Order[] restOrder(String url, String date) throws IOException, InterruptedException {
+        List<Order> orders = new ArrayList<>();
+        streamOrders(url, date, orders::add);
+        return orders.toArray(new Order[0]);
+    }
+
+    /**
+     * Retrieves the orders for a specific date from the REST service and passes each one to the
+     * consumer as soon as it has been read, without buffering the whole response.
+     *
+     * @param url The base URL of the REST service.
+     * @param date The date for which orders are requested.
+     * @param consumer Receives each order in the order they appear in the response.
+     * @return The number of orders read.
+     * @throws IOException If an I/O error occurs or the response is not an order or array of orders.
+     * @throws InterruptedException If the operation is interrupted.
+     */
+    public static int streamOrders(String url, String date, Consumer<Order> consumer) throws IOException, InterruptedException {
         String urlString = url + "/orders/" + date;
-        String response = sendRequest(urlString);
-        return objectMapper.readValue(response, Order[].class);
+        long start = System.nanoTime();
+        HttpResponse<InputStream> response = Client.send(request(urlString), HttpResponse.BodyHandlers.ofInputStream());
+        latency(urlString).recordSince(start);
+        try (InputStream body = response.body()) {
+            if (response.statusCode() != 200) {
+                throw new IOException("Response code error: " + response.statusCode() + " for " + urlString);
+            }
+            return readOrders(body, consumer);
+        }
+    }
+
+    /**
+     * Reads orders one at a time from a JSON array of orders, or from a single order object.
+     *
+     * @param in The JSON input.
+     * @param consumer Receives each order as it is read.
+     * @return The number of orders read.
+     * @throws IOException If an I/O error occurs or the input is not an order or array of orders.
+     */
+    static int readOrders(InputStream in, Consumer<Order> consumer) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(in)) {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.START_OBJECT) {
+                consumer.accept(objectMapper.readValue(parser, Order.class));
+                return 1;
+            }
+            if (token != JsonToken.START_ARRAY) {
+                throw new IOException("Expected an array of orders but found " + token);
+            }
+            int count = 0;
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                consumer.accept(objectMapper.readValue(parser, Order.class));
+                count++;
+            }
+            if (parser.currentToken() != JsonToken.END_ARRAY) {
+                throw new IOException("Expected an order but found " + parser.currentToken());
+            }
+            return count;
+        }
     }
 
     /**
@@ -116,4 +255,208 @@ public class RestService {
         String response = sendRequest(urlString);
         return objectMapper.readValue(response, NamedRegion[].class);
     }
+
+    /**
+     * Asynchronously checks if the REST service is alive.
+     *
+     * @param url The base URL of the REST service.
+     * @return A future of the response body as a string.
+     */
+    public static CompletableFuture<String> isAliveAsync(String url) {
+        return sendRequestAsync(url + "/isAlive");
+    }
+
+    /**
+     * Asynchronously retrieves an array of Restaurant objects from the REST service.
+     *
+     * @param url The base URL of the REST service.
+     * @return A future of an array of Restaurant objects.
+     */
+    public static CompletableFuture<Restaurant[]> restResaurantAsync(String url) {
+        return sendRequestAsync(url + "/restaurants").thenApply(response -> parse(response, Restaurant[].class));
+    }
+
+    /**
+     * Asynchronously retrieves an array of Order objects for a specific date from the REST service.
+     * Cancelling the future stops the request: the response body is closed, which releases the
+     * connection and makes a reader still parsing it fail.
+     *
+     * @param url The base URL of the REST service.
+     * @param date The date for which orders are requested.
+     * @return A future of an array of Order objects.
+     */
+    public static CompletableFuture<Order[]> restOrderAsync(String url, String date) {
+        String urlString = url + "/orders/" + date;
+        long start = System.nanoTime();
+        CompletableFuture<HttpResponse<InputStream>> responses = Client.sendAsync(request(urlString), HttpResponse.BodyHandlers.ofInputStream());
+        CompletableFuture<Order[]> parsed = responses
+                .thenApplyAsync(response -> {
+                    latency(urlString).recordSince(start);
+                    List<Order> orders = new ArrayList<>();
+                    try (InputStream body = response.body()) {
+                        if (response.statusCode() != 200) {
+                            throw new IOException("Response code error: " + response.statusCode() + " for " + urlString);
+                        }
+                        readOrders(body, orders::add);
+                    } catch (IOException e) {
+                        throw new CompletionException(e);
+                    }
+                    return orders.toArray(new Order[0]);
+                }, BodyReaders);
+        parsed.whenComplete((result, failure) -> {
+            if (parsed.isCancelled()) {
+                // Cancelling only completes the future; the request and the reader go on unless stopped here
+                responses.cancel(true);
+                responses.thenAccept(response -> closeQuietly(response.body()));
+            }
+        });
+        return parsed;
+    }
+
+    private static void closeQuietly(InputStream body) {
+        try {
+            body.close();
+        } catch (IOException e) {
+            // The body is not used again
+        }
+    }
+
+    /**
+     * Asynchronously retrieves the central area as a NamedRegion object from the REST service.
+     *
+     * @param url The base URL of the REST service.
+     * @return A future of a NamedRegion object representing the central area.
+     */
+    public static CompletableFuture<NamedRegion> restCentralAreaAsync(String url) {
+        return sendRequestAsync(url + "/centralArea").thenApply(response -> parse(response, NamedRegion[].class)[0]);
+    }
+
+    /**
+     * Asynchronously retrieves an array of no-fly zones as NamedRegion objects from the REST service.
+     *
+     * @param url The base URL of the REST service.
+     * @return A future of an array of NamedRegion objects representing no-fly zones.
+     */
+    public static CompletableFuture<NamedRegion[]> restNoFlyZoneAsync(String url) {
+        return sendRequestAsync(url + "/noFlyZones").thenApply(response -> parse(response, NamedRegion[].class));
+    }
+
+    /**
+     * Checks that the REST service is alive and retrieves everything needed to plan the deliveries for a date.
+     * Nothing else is requested until the service has said it is alive; the other requests are then
+     * sent at once, so this costs about two round trips. If any request fails, the others are
+     * cancelled and the first failure is thrown.
+     *
+     * @param url The base URL of the REST service.
+     * @param date The date for which orders are requested.
+     * @return The restaurants, orders, central area and no-fly zones.
+     * @throws IOException If an I/O error occurs.
+     * @throws InterruptedException If the operation is interrupted.
+     * @throws IllegalStateException If the service reports that it is not alive.
+     */
+    public static ServiceData fetchAll(String url, String date) throws IOException, InterruptedException {
+        BatchData data = fetchAll(url, List.of(date));
+        return new ServiceData(data.restaurants(), data.orders().get(0), data.centralArea(), data.noFlyZones());
+    }
+
+    /**
+     * Checks that the REST service is alive and retrieves everything needed to plan the deliveries
+     * for several dates, fetching the restaurants and regions once. As for a single date, the
+     * requests are sent at once after the service has said it is alive, and if any fails, the
+     * others are cancelled and the first failure is thrown.
+     *
+     * @param url The base URL of the REST service.
+     * @param dates The dates for which orders are requested.
+     * @return The restaurants, each date's orders, central area and no-fly zones.
+     * @throws IOException If an I/O error occurs.
+     * @throws InterruptedException If the operation is interrupted.
+     * @throws IllegalStateException If the service reports that it is not alive.
+     */
+    public static BatchData fetchAll(String url, List<String> dates) throws IOException, InterruptedException {
+        if (!isAlive(url).equals("true")) {
+            throw new IllegalStateException("Service is not alive");
+        }
+        CompletableFuture<Restaurant[]> restaurants = restResaurantAsync(url);
+        CompletableFuture<NamedRegion> centralArea = restCentralAreaAsync(url);
+        CompletableFuture<NamedRegion[]> noFlyZones = restNoFlyZoneAsync(url);
+        List<CompletableFuture<Order[]>> orders = new ArrayList<>(dates.size());
+        for (String date : dates) {
+            orders.add(restOrderAsync(url, date));
+        }
+        List<CompletableFuture<?>> sent = new ArrayList<>(orders);
+        sent.add(restaurants);
+        sent.add(centralArea);
+        sent.add(noFlyZones);
+        CompletableFuture<?>[] requests = sent.toArray(new CompletableFuture<?>[0]);
+
+        // Completes normally once every request has, or exceptionally as soon as one fails
+        CompletableFuture<Void> all = CompletableFuture.allOf(requests);
+        for (CompletableFuture<?> request : requests) {
+            request.whenComplete((result, failure) -> {
+                if (failure != null) {
+                    all.completeExceptionally(failure);
+                }
+            });
+        }
+
+        try {
+            all.get();
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        } finally {
+            for (CompletableFuture<?> request : requests) {
+                request.cancel(true);
+            }
+        }
+
+        List<Order[]> ordersByDate = new ArrayList<>(orders.size());
+        for (CompletableFuture<Order[]> request : orders) {
+            ordersByDate.add(request.join());
+        }
+        return new BatchData(restaurants.join(), ordersByDate, centralArea.join(), noFlyZones.join());
+    }
+
+    /**
+     * Turns the cause of a failed request back into the exception the blocking methods would throw.
+     *
+     * @param cause The failure of the request.
+     * @return The IOException to throw.
+     */
+    static IOException unwrap(Throwable cause) {
+        while (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof IOException ioException) {
+            return ioException;
+        }
+        if (cause instanceof UncheckedIOException uncheckedIOException) {
+            return uncheckedIOException.getCause();
+        }
+        if (cause instanceof RuntimeException runtimeException) {
+            throw runtimeException;
+        }
+        return new IOException(cause);
+    }
+
+    /**
+     * Everything retrieved from the REST service to plan the deliveries for one date.
+     *
+     * @param restaurants The restaurants.
+     * @param orders The orders for the date.
+     * @param centralArea The central area.
+     * @param noFlyZones The no-fly zones.
+     */
+    public record ServiceData(Restaurant[] restaurants, Order[] orders, NamedRegion centralArea, NamedRegion[] noFlyZones) {
+    }
+
+    /**
+     * Everything retrieved from the REST service to plan the deliveries for several dates.
+     *
+     * @param restaurants The restaurants.
+     * @param orders The orders for each date, in the order the dates were given.
+     * @param centralArea The central area.
+     * @param noFlyZones The no-fly zones.
+     */
+    public record BatchData(Restaurant[] restaurants, List<Order[]> orders, NamedRegion centralArea, NamedRegion[] noFlyZones) {
+    }
 }
@@ -0,0 +1,226 @@
+package uk.ac.ed.inf;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A result file that is written to a temporary file next to it and moved into place by commit, so
+ * anyone reading the result files sees either the old file or the complete new one, never part of
+ * one. Content is encoded into a set of direct buffers which are written to the file's channel in
+ * one gathering write each time they are all full. Buffer sets are reused from one file to the next.
+ * <p>
+ * Closing the file without committing it deletes the temporary file and leaves the target as it was.
+ * This class is not thread-safe, but different files can be written at the same time.
+ */
+public final class ResultFile implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int BUFFER_COUNT = 4;
+
+    // Most buffer sets kept for reuse, enough for a few dates being written at once.
+    private static final int POOL_LIMIT = 16;
+
+    static final Metrics.Counter BYTES_WRITTEN = Metrics.counter("output.bytesWritten");
+
+    // Buffer sets not in use; direct buffers are slow to allocate, so they are kept rather than dropped.
+    private static final Queue<ByteBuffer[]> pool = new ConcurrentLinkedQueue<>();
+
+    private final Path target;
+    private final Path temp;
+    private final FileChannel channel;
+    private ByteBuffer[] buffers;
+    private int current;
+    private boolean committed;
+
+    private ResultFile(Path target, Path temp, FileChannel channel) {
+        this.target = target;
+        this.temp = temp;
+        this.channel = channel;
+        ByteBuffer[] reused = pool.poll();
+        if (reused == null) {
+            reused = new ByteBuffer[BUFFER_COUNT];
+            for (int i = 0; i < BUFFER_COUNT; i++) {
+                reused[i] = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            }
+        }
+        buffers = reused;
+    }
+
+    /**
+     * Starts writing a file.
+     *
+     * @param target The file to write; it is created or replaced when the file is committed.
+     * @return The file, empty.
+     * @throws IOException if the temporary file cannot be created.
+     */
+    public static ResultFile create(Path target) throws IOException {
+        Path absolute = target.toAbsolutePath();
+        Path temp = absolute.resolveSibling("." + absolute.getFileName() + "."
+                + Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+        FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        return new ResultFile(absolute, temp, channel);
+    }
+
+    /**
+     * Writes text to a file in UTF-8, replacing it only once it is complete.
+     *
+     * @param target The file to write; it is created or replaced.
+     * @param text   The content of the file.
+     * @throws IOException if an I/O error occurs.
+     */
+    public static void write(Path target, CharSequence text) throws IOException {
+        try (ResultFile file = create(target)) {
+            file.write(text);
+            file.commit();
+        }
+    }
+
+    /**
+     * Appends text to the file, encoding it in UTF-8 straight into the buffers.
+     *
+     * @param text The text to append.
+     * @throws IOException if an I/O error occurs.
+     */
+    public void write(CharSequence text) throws IOException {
+        CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        CharBuffer in = CharBuffer.wrap(text);
+        ByteBuffer out = buffer();
+        while (encoder.encode(in, out, true).isOverflow()) {
+            out = nextBuffer();
+        }
+        while (encoder.flush(out).isOverflow()) {
+            out = nextBuffer();
+        }
+    }
+
+    /**
+     * Appends bytes to the file.
+     *
+     * @param bytes  The bytes to append.
+     * @param offset Where the bytes start in the array.
+     * @param length The number of bytes.
+     * @throws IOException if an I/O error occurs.
+     */
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        while (length > 0) {
+            ByteBuffer buffer = buffer();
+            int count = Math.min(length, buffer.remaining());
+            buffer.put(bytes, offset, count);
+            offset += count;
+            length -= count;
+        }
+    }
+
+    /**
+     * @return A stream that appends to the file. Closing the stream does not close or commit the file.
+     */
+    public OutputStream getOutputStream() {
+        return new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                buffer().put((byte) b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                ResultFile.this.write(b, off, len);
+            }
+        };
+    }
+
+    /**
+     * Writes what is left in the buffers and moves the file into place, replacing any file already there.
+     * The content is forced to the disk first, so after a crash the target holds either the old file
+     * or the whole new one, not a new file whose content was never written.
+     *
+     * @throws IOException if an I/O error occurs.
+     */
+    public void commit() throws IOException {
+        if (committed) {
+            return;
+        }
+        writeBuffers();
+        channel.force(true);
+        channel.close();
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        committed = true;
+    }
+
+    /**
+     * Releases the buffers, and deletes the temporary file if the file was not committed.
+     *
+     * @throws IOException if the temporary file cannot be deleted.
+     */
+    @Override
+    public void close() throws IOException {
+        if (buffers == null) {
+            return;
+        }
+        for (ByteBuffer buffer : buffers) {
+            buffer.clear();
+        }
+        if (pool.size() < POOL_LIMIT) {
+            pool.offer(buffers);
+        }
+        buffers = null;
+        if (!committed) {
+            channel.close();
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // Returns a buffer with room in it, writing out the buffers first if they are all full.
+    private ByteBuffer buffer() throws IOException {
+        if (buffers == null) {
+            throw new IOException("Result file is closed: " + target);
+        }
+        return buffers[current].hasRemaining() ? buffers[current] : nextBuffer();
+    }
+
+    // Moves on to the next buffer, writing out the buffers first if this was the last one.
+    private ByteBuffer nextBuffer() throws IOException {
+        if (++current == BUFFER_COUNT) {
+            writeBuffers();
+        }
+        return buffers[current];
+    }
+
+    // Writes every buffer with one gathering write, and empties them.
+    private void writeBuffers() throws IOException {
+        int count = Math.min(current + 1, BUFFER_COUNT);
+        long bytes = 0;
+        for (int i = 0; i < count; i++) {
+            buffers[i].flip();
+            bytes += buffers[i].remaining();
+        }
+        for (long left = bytes; left > 0; ) {
+            left -= channel.write(buffers, 0, count);
+        }
+        for (int i = 0; i < count; i++) {
+            buffers[i].clear();
+        }
+        current = 0;
+        BYTES_WRITTEN.add(bytes);
+    }
+}
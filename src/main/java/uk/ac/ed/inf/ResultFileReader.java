@@ -0,0 +1,85 @@
+package uk.ac.ed.inf;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads result files whether or not they were written compressed, decompressing gzip files as they
+ * are read so a compressed file is never held in memory whole. A file is treated as compressed if it
+ * starts with the gzip header, so callers do not need to know how the run that wrote it was set up.
+ */
+public final class ResultFileReader {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    // The first two bytes of every gzip stream.
+    private static final int GZIP_MAGIC = 0x8b1f;
+
+    private ResultFileReader() {
+    }
+
+    /**
+     * Opens a result file for reading.
+     *
+     * @param file The file to read.
+     * @return The content of the file, decompressed if it is gzip-compressed.
+     * @throws IOException if the file cannot be opened or its compressed header is invalid.
+     */
+    public static InputStream open(Path file) throws IOException {
+        InputStream in = new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE);
+        try {
+            in.mark(2);
+            int first = in.read();
+            int second = in.read();
+            in.reset();
+            if (first >= 0 && second >= 0 && (first | second << 8) == GZIP_MAGIC) {
+                return new BufferedInputStream(new GZIPInputStream(in, BUFFER_SIZE), BUFFER_SIZE);
+            }
+            return in;
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens a result file for reading as UTF-8 text.
+     *
+     * @param file The file to read.
+     * @return The text of the file, decompressed if it is gzip-compressed.
+     * @throws IOException if the file cannot be opened or its compressed header is invalid.
+     */
+    public static BufferedReader openReader(Path file) throws IOException {
+        return new BufferedReader(new InputStreamReader(open(file), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Writes result files to stdout, decompressed.
+     *
+     * @param args The files to read.
+     */
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            Log.error("Usage: ResultFileReader FILE...");
+            return;
+        }
+        try {
+            for (String file : args) {
+                try (InputStream in = open(Paths.get(file))) {
+                    in.transferTo(System.out);
+                }
+            }
+            System.out.flush();
+        } catch (IOException e) {
+            Log.error("Could not read result file", e);
+        }
+    }
+}
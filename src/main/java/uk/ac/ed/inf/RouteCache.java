@@ -0,0 +1,206 @@
+package uk.ac.ed.inf;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * A bounded, thread-safe cache of planned routes, shared by every FlightPath it is given to.
+ * Routes are weighed by their number of moves; once the total weight exceeds the limit, the least
+ * recently used routes are evicted. Keys include a hash of the regions the route was planned
+ * around, so one cache can serve FlightPaths for different no-fly zones without mixing them up.
+ */
+public final class RouteCache {
+    // Default limit on the total number of cached moves, enough for many thousands of routes.
+    public static final long DEFAULT_MAX_MOVES = 1_000_000;
+
+    private final long maxMoves;
+
+    // Cached routes in access order, guarded by this cache's monitor.
+    private final LinkedHashMap<Key, FlightPathBuffer> routes = new LinkedHashMap<>(64, 0.75f, true);
+    private long moves;
+
+    // Routes being planned right now, so concurrent requests for the same route wait for one search.
+    private final Map<Key, CompletableFuture<FlightPathBuffer>> planning = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    // Run-wide totals across every cache, alongside this cache's own counters.
+    private static final Metrics.Counter HITS = Metrics.counter("routecache.hits");
+    private static final Metrics.Counter MISSES = Metrics.counter("routecache.misses");
+    private static final Metrics.Counter EVICTIONS = Metrics.counter("routecache.evictions");
+
+    /**
+     * Creates a cache holding up to DEFAULT_MAX_MOVES moves.
+     */
+    public RouteCache() {
+        this(DEFAULT_MAX_MOVES);
+    }
+
+    /**
+     * Creates a cache holding up to the given number of moves.
+     *
+     * @param maxMoves Maximum total number of moves across all cached routes.
+     */
+    public RouteCache(long maxMoves) {
+        if (maxMoves <= 0) {
+            throw new IllegalArgumentException("Maximum number of moves must be positive");
+        }
+        this.maxMoves = maxMoves;
+    }
+
+    /**
+     * Identifies a route by its end points and the regions it was planned around.
+     *
+     * @param restaurantLng Longitude of the restaurant.
+     * @param restaurantLat Latitude of the restaurant.
+     * @param dropOffLng    Longitude of the drop-off location.
+     * @param dropOffLat    Latitude of the drop-off location.
+     * @param regionHash    Hash of the no-fly zones and central area, as given by RouteTable.regionHash.
+     */
+    public record Key(double restaurantLng, double restaurantLat, double dropOffLng, double dropOffLat, long regionHash) {
+    }
+
+    /**
+     * Returns the cached route for a key, planning and caching it if needed. If several threads ask
+     * for the same missing route at once, it is planned only once and the others wait for it.
+     * The returned buffer is shared and must not be modified.
+     *
+     * @param key     The route to look up.
+     * @param planner Plans the route if it is not cached.
+     * @return The route.
+     */
+    public FlightPathBuffer get(Key key, Function<Key, FlightPathBuffer> planner) {
+        FlightPathBuffer route = lookup(key);
+        if (route != null) {
+            hits.increment();
+            HITS.increment();
+            return route;
+        }
+
+        CompletableFuture<FlightPathBuffer> pending = new CompletableFuture<>();
+        CompletableFuture<FlightPathBuffer> existing = planning.putIfAbsent(key, pending);
+        if (existing != null) {
+            hits.increment();
+            HITS.increment();
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                throw unwrap(e);
+            }
+        }
+
+        try {
+            // Another thread may have finished planning between the lookup and claiming the key.
+            route = lookup(key);
+            if (route != null) {
+                hits.increment();
+                HITS.increment();
+            } else {
+                misses.increment();
+                MISSES.increment();
+                route = planner.apply(key);
+                put(key, route);
+            }
+            pending.complete(route);
+            return route;
+        } catch (Throwable e) {
+            // Threads waiting for this route must not wait forever, even if planning hit an Error
+            pending.completeExceptionally(e);
+            throw e;
+        } finally {
+            planning.remove(key);
+        }
+    }
+
+    /**
+     * Adds a route to the cache, replacing any route for the same key.
+     * Routes heavier than the whole cache are not stored.
+     *
+     * @param key   The route's key.
+     * @param route The route; it must not be modified afterwards.
+     */
+    public synchronized void put(Key key, FlightPathBuffer route) {
+        if (route.size() > maxMoves) {
+            return;
+        }
+        FlightPathBuffer previous = routes.put(key, route);
+        moves += route.size() - (previous == null ? 0 : previous.size());
+
+        Iterator<FlightPathBuffer> eldest = routes.values().iterator();
+        while (moves > maxMoves) {
+            moves -= eldest.next().size();
+            eldest.remove();
+            evictions.increment();
+            EVICTIONS.increment();
+        }
+    }
+
+    private synchronized FlightPathBuffer lookup(Key key) {
+        return routes.get(key);
+    }
+
+    /**
+     * Removes every route from the cache. The counters are kept.
+     */
+    public synchronized void clear() {
+        routes.clear();
+        moves = 0;
+    }
+
+    /**
+     * @return The number of cached routes.
+     */
+    public synchronized int size() {
+        return routes.size();
+    }
+
+    /**
+     * @return The total number of moves in the cached routes.
+     */
+    public synchronized long getMoveCount() {
+        return moves;
+    }
+
+    /**
+     * @return The number of requests answered from the cache, including those that waited for another thread.
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * @return The number of requests that had to plan the route.
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return The number of routes evicted to stay within the size limit.
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * Unwraps the failure of a route planned by another thread.
+     *
+     * @param e The exception thrown by join.
+     * @return The original runtime exception.
+     * @throws Error the original error, if planning failed with one.
+     */
+    private static RuntimeException unwrap(CompletionException e) {
+        if (e.getCause() instanceof Error cause) {
+            throw cause;
+        }
+        return e.getCause() instanceof RuntimeException cause ? cause : e;
+    }
+}
@@ -0,0 +1,298 @@
+package uk.ac.ed.inf;
+
+import uk.ac.ed.inf.ilp.data.NamedRegion;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Planned routes kept on disk between runs, so a run with the same geometry as the last one does
+ * not plan its routes again.
+ * The file is append-only: a header with the hash of the geometry, then one record per route with
+ * its cache key and one byte per move, as in RouteTable. An index from key to record offset is
+ * built when the file is opened, and routes are then read through a memory mapping. If the format
+ * version or geometry hash in the header does not match, the file is emptied. Records cut short
+ * by an interrupted run, or holding a byte that is not a move, are dropped with every record after
+ * them when the file is opened.
+ * The file is locked while it is open, so only one run at a time uses it; a run that cannot open
+ * or lock the file plans without it.
+ */
+public final class RouteStore implements Closeable {
+    // Marks a route store file ("PDRS").
+    private static final int MAGIC = 0x50445253;
+
+    // Version of the binary layout; bump when the layout changes.
+    private static final short FORMAT_VERSION = 1;
+
+    // Magic, version and geometry hash.
+    private static final int HEADER_SIZE = 4 + 2 + 8;
+
+    // Four coordinates, the route version and the move count, before the moves themselves.
+    private static final int RECORD_HEADER_SIZE = 4 * 8 + 8 + 4;
+
+    // Byte used for a hover move.
+    private static final byte HOVER = 16;
+
+    // The file is mapped whole, and one mapping is limited to 2GB; routes past this are not stored.
+    private static final long MAX_SIZE = Integer.MAX_VALUE;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final Map<RouteCache.Key, Long> index = new HashMap<>();
+    private MappedByteBuffer mapped;
+    private long end;
+    private boolean full;
+
+    private RouteStore(Path file, FileChannel channel) {
+        this.file = file;
+        this.channel = channel;
+    }
+
+    /**
+     * Opens a route store, creating it if it does not exist and emptying it if it was written for
+     * other geometry. If the file cannot be opened, is not a route store or is in use by another
+     * run, a warning is logged and no store is returned.
+     *
+     * @param file        The store file.
+     * @param noFlyZones  The current no-fly zones.
+     * @param centralArea The current central area.
+     * @return The opened store, or empty if it cannot be used.
+     */
+    public static Optional<RouteStore> open(Path file, NamedRegion[] noFlyZones, NamedRegion centralArea) {
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            if (!tryLock(channel)) {
+                Log.warn("Planning without route store " + file + ": it is in use by another run");
+                channel.close();
+                return Optional.empty();
+            }
+            RouteStore store = new RouteStore(file, channel);
+            store.load(RouteTable.regionHash(noFlyZones, centralArea));
+            return Optional.of(store);
+        } catch (IOException e) {
+            Log.warn("Planning without route store " + file + ": " + e);
+            closeQuietly(channel);
+            return Optional.empty();
+        } catch (RuntimeException e) {
+            closeQuietly(channel);
+            throw e;
+        }
+    }
+
+    /**
+     * Takes an exclusive lock on the file, held until the channel is closed.
+     *
+     * @param channel The open store file.
+     * @return true if the lock was taken; false if another run, in this process or another, holds it.
+     * @throws IOException if an I/O error occurs.
+     */
+    private static boolean tryLock(FileChannel channel) throws IOException {
+        try {
+            return channel.tryLock() != null;
+        } catch (OverlappingFileLockException e) {
+            return false;
+        }
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // Nothing more to do with a store that is not used
+            }
+        }
+    }
+
+    /**
+     * Checks the header, resetting the file if it is new or for another format or geometry, and
+     * indexes the records. The file is cut at the first record that is cut short or holds a byte
+     * that is not a move, so find only ever reads valid moves. The file is only read here, not
+     * mapped, because it may be truncated and some platforms do not allow a mapped file to be
+     * truncated.
+     *
+     * @param geometryHash Hash of the current geometry.
+     * @throws IOException if an I/O error occurs or the file is not a route store.
+     */
+    private void load(long geometryHash) throws IOException {
+        long size = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0) {
+                break;
+            }
+        }
+        if (header.hasRemaining()) {
+            reset(geometryHash);
+            return;
+        }
+        if (header.getInt(0) != MAGIC) {
+            throw new IOException("Not a route store file");
+        }
+        if (header.getShort(4) != FORMAT_VERSION || header.getLong(6) != geometryHash) {
+            reset(geometryHash);
+            return;
+        }
+
+        // Not closed, as that would close the channel
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel.position(HEADER_SIZE)), 1 << 16));
+        long limit = Math.min(size, MAX_SIZE);
+        long offset = HEADER_SIZE;
+        byte[] buffer = new byte[256];
+        while (offset + RECORD_HEADER_SIZE <= limit) {
+            RouteCache.Key key = new RouteCache.Key(in.readDouble(), in.readDouble(), in.readDouble(), in.readDouble(), in.readLong());
+            int moves = in.readInt();
+            if (moves < 0 || offset + RECORD_HEADER_SIZE + moves > limit) {
+                break;
+            }
+            if (buffer.length < moves) {
+                buffer = new byte[Math.max(moves, buffer.length * 2)];
+            }
+            in.readFully(buffer, 0, moves);
+            if (!validMoves(buffer, moves)) {
+                break;
+            }
+            index.put(key, offset);
+            offset += RECORD_HEADER_SIZE + moves;
+        }
+        end = offset;
+        if (end < size) {
+            channel.truncate(end);
+        }
+    }
+
+    /**
+     * @param moves The move bytes of a record.
+     * @param count The number of moves.
+     * @return true if every byte is a compass direction or a hover.
+     */
+    private static boolean validMoves(byte[] moves, int count) {
+        for (int i = 0; i < count; i++) {
+            if (moves[i] < 0 || moves[i] > HOVER) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void reset(long geometryHash) throws IOException {
+        channel.truncate(0);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putShort(FORMAT_VERSION).putLong(geometryHash).flip();
+        while (header.hasRemaining()) {
+            channel.write(header, header.position());
+        }
+        end = HEADER_SIZE;
+        index.clear();
+    }
+
+    /**
+     * Looks up the route to the restaurant stored for a key.
+     *
+     * @param key The route's cache key; the route starts at its drop-off location.
+     * @return The route from the drop-off to the restaurant, ending with a hover, if it is stored.
+     * @throws UncheckedIOException if the file cannot be mapped.
+     */
+    public synchronized Optional<FlightPathBuffer> find(RouteCache.Key key) {
+        Long offset = index.get(key);
+        if (offset == null) {
+            return Optional.empty();
+        }
+        try {
+            // Records appended since the file was mapped are past the end of the mapping.
+            if (mapped == null || mapped.capacity() < end) {
+                mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, end);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        // Records are only stored below MAX_SIZE, so every offset fits in the mapping
+        int position = Math.toIntExact(offset) + RECORD_HEADER_SIZE;
+        int moves = mapped.getInt(position - 4);
+        FlightPathBuffer route = new FlightPathBuffer(moves);
+        double lng = key.dropOffLng();
+        double lat = key.dropOffLat();
+        for (int i = 0; i < moves; i++) {
+            byte move = mapped.get(position + i);
+            if (move == HOVER) {
+                route.add(lng, lat, 999, lng, lat, FlightPathBuffer.NO_ORDER);
+            } else {
+                double nextLng = LngLatHandler.nextLng(lng, move);
+                double nextLat = LngLatHandler.nextLat(lat, move);
+                route.add(lng, lat, move * LngLatHandler.DIRECTION_STEP, nextLng, nextLat, FlightPathBuffer.NO_ORDER);
+                lng = nextLng;
+                lat = nextLat;
+            }
+        }
+        return Optional.of(route);
+    }
+
+    /**
+     * Appends a route to the store. A key that is already stored is left as it is, and once the
+     * store is full, routes are no longer stored.
+     *
+     * @param key               The route's cache key.
+     * @param routeToRestaurant The route from the drop-off to the restaurant, ending with a hover.
+     * @throws UncheckedIOException if the route cannot be written.
+     */
+    public synchronized void append(RouteCache.Key key, FlightPathBuffer routeToRestaurant) {
+        if (index.containsKey(key)) {
+            return;
+        }
+        int moves = routeToRestaurant.size();
+        if (end + RECORD_HEADER_SIZE + moves > MAX_SIZE) {
+            if (!full) {
+                Log.warn("Route store " + file + " is full; new routes are not stored");
+                full = true;
+            }
+            return;
+        }
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + moves);
+        record.putDouble(key.restaurantLng()).putDouble(key.restaurantLat())
+                .putDouble(key.dropOffLng()).putDouble(key.dropOffLat())
+                .putLong(key.regionHash()).putInt(moves);
+        for (int i = 0; i < moves; i++) {
+            double angle = routeToRestaurant.getAngle(i);
+            record.put(angle == 999 ? HOVER : (byte) (angle / LngLatHandler.DIRECTION_STEP));
+        }
+        record.flip();
+        try {
+            long offset = end;
+            while (record.hasRemaining()) {
+                channel.write(record, offset + record.position());
+            }
+            index.put(key, offset);
+            end = offset + record.limit();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return The number of stored routes.
+     */
+    public synchronized int size() {
+        return index.size();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        mapped = null;
+        channel.close();
+    }
+}
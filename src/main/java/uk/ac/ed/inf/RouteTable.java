@@ -0,0 +1,256 @@
+package uk.ac.ed.inf;
+
+import uk.ac.ed.inf.ilp.data.LngLat;
+import uk.ac.ed.inf.ilp.data.NamedRegion;
+import uk.ac.ed.inf.ilp.data.Restaurant;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+import static uk.ac.ed.inf.ilp.constant.SystemConstants.DRONE_MOVE_DISTANCE;
+
+/**
+ * Precomputed routes from the drop-off location to every restaurant, built once for a given
+ * set of no-fly zones and central area and stored in a compact binary file.
+ * Each route is stored as its start position and one byte per move, the index of the move's angle,
+ * and is rebuilt with LngLatHandler.nextPosition, which gives exactly the positions that were planned.
+ */
+public class RouteTable {
+    // Marks a route table file ("PDRT").
+    private static final int MAGIC = 0x50445254;
+
+    // Version of the binary layout; bump when the layout changes.
+    private static final short FORMAT_VERSION = 1;
+
+    // Byte used for a hover move.
+    private static final byte HOVER = 16;
+
+    // Angle between two neighbouring flight directions.
+    private static final double ANGLE_STEP = 22.5;
+
+    // Bytes before the moves of each route: two positions and the move count.
+    private static final int ROUTE_HEADER_SIZE = 4 * Double.BYTES + Integer.BYTES;
+
+    // Hash of the geometry the routes were planned for.
+    private final long regionHash;
+
+    // Routes from the drop-off location to each restaurant, keyed by restaurant and drop-off location.
+    private final Map<List<LngLat>, List<Node>> routes = new LinkedHashMap<>();
+
+    private final LngLatHandler lngLatHandler = new LngLatHandler();
+
+    private RouteTable(long regionHash) {
+        this.regionHash = regionHash;
+    }
+
+    /**
+     * Plans the route from the drop-off location to every restaurant.
+     *
+     * @param noFlyZones  The no-fly zones the routes must avoid.
+     * @param centralArea The central area of operation.
+     * @param restaurants The restaurants to plan routes to.
+     * @param dropOff     The drop-off location every route starts from.
+     * @return The route table.
+     */
+    public static RouteTable build(NamedRegion[] noFlyZones, NamedRegion centralArea, Restaurant[] restaurants, LngLat dropOff) {
+        RouteTable table = new RouteTable(regionHash(noFlyZones, centralArea));
+        FlightPath pathCalculator = new FlightPath(noFlyZones, centralArea);
+        for (Restaurant restaurant : restaurants) {
+            List<Node> totalPath = pathCalculator.findTotalPath(restaurant.location(), dropOff, null);
+            // Keeps the route up to and including the hover at the restaurant; the return path is derived from it.
+            int hoverIndex = 0;
+            while (totalPath.get(hoverIndex).getAngle() != 999) {
+                hoverIndex++;
+            }
+            table.routes.put(List.of(restaurant.location(), dropOff), new ArrayList<>(totalPath.subList(0, hoverIndex + 1)));
+        }
+        return table;
+    }
+
+    /**
+     * Computes a hash of the region geometry the routes depend on.
+     *
+     * @param noFlyZones  The no-fly zones.
+     * @param centralArea The central area of operation.
+     * @return A 64-bit hash of all vertices and the move distance.
+     */
+    public static long regionHash(NamedRegion[] noFlyZones, NamedRegion centralArea) {
+        long hash = 0xcbf29ce484222325L;
+        hash = mix(hash, Double.doubleToLongBits(DRONE_MOVE_DISTANCE));
+        hash = mixRegion(hash, centralArea);
+        for (NamedRegion noFlyZone : noFlyZones) {
+            hash = mixRegion(hash, noFlyZone);
+        }
+        return hash;
+    }
+
+    private static long mixRegion(long hash, NamedRegion region) {
+        hash = mix(hash, region.vertices().length);
+        for (LngLat vertex : region.vertices()) {
+            hash = mix(hash, Double.doubleToLongBits(vertex.lng()));
+            hash = mix(hash, Double.doubleToLongBits(vertex.lat()));
+        }
+        return hash;
+    }
+
+    // FNV-1a over the eight bytes of value.
+    private static long mix(long hash, long value) {
+        for (int i = 0; i < 8; i++) {
+            hash ^= (value >>> (i * 8)) & 0xFF;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * @return The hash of the geometry this table was planned for.
+     */
+    public long getRegionHash() {
+        return regionHash;
+    }
+
+    /**
+     * @return The number of routes in the table.
+     */
+    public int size() {
+        return routes.size();
+    }
+
+    /**
+     * Adds every route in the table to the cache of the given FlightPath.
+     *
+     * @param pathCalculator The FlightPath to preload.
+     */
+    public void preload(FlightPath pathCalculator) {
+        for (Map.Entry<List<LngLat>, List<Node>> route : routes.entrySet()) {
+            pathCalculator.addCachedRoute(route.getKey().get(0), route.getKey().get(1), route.getValue());
+        }
+    }
+
+    /**
+     * Writes the table to a file.
+     *
+     * @param file The file to write to.
+     * @throws IOException if an I/O error occurs.
+     */
+    public void write(Path file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeShort(FORMAT_VERSION);
+            out.writeLong(regionHash);
+            out.writeInt(routes.size());
+            for (Map.Entry<List<LngLat>, List<Node>> route : routes.entrySet()) {
+                LngLat restaurantLoc = route.getKey().get(0);
+                LngLat dropOff = route.getKey().get(1);
+                out.writeDouble(restaurantLoc.lng());
+                out.writeDouble(restaurantLoc.lat());
+                out.writeDouble(dropOff.lng());
+                out.writeDouble(dropOff.lat());
+                out.writeInt(route.getValue().size());
+                for (Node node : route.getValue()) {
+                    out.writeByte(node.getAngle() == 999 ? HOVER : (int) (node.getAngle() / ANGLE_STEP));
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads a table from a file if it exists and was built for the given geometry.
+     * The table only saves planning time, so a file that cannot be read or is not a valid table is
+     * reported as a warning and ignored.
+     *
+     * @param file        The file to read from.
+     * @param noFlyZones  The current no-fly zones.
+     * @param centralArea The current central area.
+     * @return The table, or an empty Optional if the file is missing, unreadable, not a valid table,
+     * or was built for other geometry.
+     */
+    public static Optional<RouteTable> load(Path file, NamedRegion[] noFlyZones, NamedRegion centralArea) {
+        if (!Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readShort() != FORMAT_VERSION) {
+                throw new IOException("Not a route table file");
+            }
+            long fileHash = in.readLong();
+            if (fileHash != regionHash(noFlyZones, centralArea)) {
+                return Optional.empty();
+            }
+            // Counts are checked against the file size so a corrupt count cannot cause a huge allocation
+            long size = Files.size(file);
+            RouteTable table = new RouteTable(fileHash);
+            int routeCount = in.readInt();
+            if (routeCount < 0 || routeCount > size / ROUTE_HEADER_SIZE) {
+                throw new IOException("Invalid route count " + routeCount);
+            }
+            for (int i = 0; i < routeCount; i++) {
+                LngLat restaurantLoc = new LngLat(in.readDouble(), in.readDouble());
+                LngLat dropOff = new LngLat(in.readDouble(), in.readDouble());
+                int moveCount = in.readInt();
+                if (moveCount < 0 || moveCount > size) {
+                    throw new IOException("Invalid move count " + moveCount);
+                }
+                byte[] moves = new byte[moveCount];
+                in.readFully(moves);
+                table.routes.put(List.of(restaurantLoc, dropOff), table.rebuildRoute(dropOff, moves));
+            }
+            return Optional.of(table);
+        } catch (IOException e) {
+            Log.warn("Ignoring route table " + file + ": " + (e instanceof EOFException ? "file is truncated" : e.getMessage()));
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Rebuilds the nodes of a stored route.
+     *
+     * @param start The position the route starts at.
+     * @param moves The angle index of every move, or HOVER.
+     * @return List of Nodes representing the route.
+     * @throws IOException if a byte is neither an angle index nor HOVER.
+     */
+    private List<Node> rebuildRoute(LngLat start, byte[] moves) throws IOException {
+        List<Node> route = new ArrayList<>(moves.length);
+        LngLat position = start;
+        for (byte move : moves) {
+            if (move == HOVER) {
+                route.add(new Node(position, 999, position));
+            } else if (move < 0 || move >= HOVER) {
+                throw new IOException("Corrupt route table");
+            } else {
+                double angle = move * ANGLE_STEP;
+                LngLat next = lngLatHandler.nextPosition(position, angle);
+                route.add(new Node(position, angle, next));
+                position = next;
+            }
+        }
+        return route;
+    }
+
+    /**
+     * Builds the route table from the REST service and writes it to a file.
+     *
+     * @param args Command-line arguments: URL and output file.
+     */
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            Log.error("Invalid arguments: expected 2 arguments: URL and output file");
+            return;
+        }
+        try {
+            NamedRegion[] noFlyZones = RestService.restNoFlyZone(args[0]);
+            NamedRegion centralArea = RestService.restCentralArea(args[0]);
+            Restaurant[] restaurants = RestService.restResaurant(args[0]);
+
+            RouteTable table = build(noFlyZones, centralArea, restaurants, App.DROP_OFF_LOCATION);
+            table.write(Paths.get(args[1]));
+            Log.info("Route table with " + table.size() + " routes generated: " + args[1]);
+        } catch (Exception e) {
+            Log.error("Could not build the route table", e);
+        }
+    }
+}
@@ -3,10 +3,24 @@ package uk.ac.ed.inf;
 import junit.framework.Test;
 import junit.framework.TestCase;
 import junit.framework.TestSuite;
+import uk.ac.ed.inf.ilp.constant.OrderStatus;
+import uk.ac.ed.inf.ilp.constant.OrderValidationCode;
+import uk.ac.ed.inf.ilp.data.CreditCardInformation;
+import uk.ac.ed.inf.ilp.data.Order;
+import uk.ac.ed.inf.ilp.data.Pizza;
+import uk.ac.ed.inf.ilp.data.Restaurant;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
 
 public class AppTest extends TestCase {
     public AppTest(String testName) {
@@ -56,4 +70,86 @@ public class AppTest extends TestCase {
         assertTrue("Total time taken should be less than 60s", totalTime < 60000);
     }
 
+    /**
+     * Parallel route planning must produce exactly the same moves, in the same order, as a serial run.
+     */
+    public void testParallelRoutesMatchSerial() {
+        Restaurant[] restaurants = TestConstraints.getDefinedRestaurants();
+
+        App serialApp = new App(TestConstraints.getNoFlyZones(), TestConstraints.getCentralArea(), restaurants, createOrders(restaurants, 12));
+        App parallelApp = new App(TestConstraints.getNoFlyZones(), TestConstraints.getCentralArea(), restaurants, createOrders(restaurants, 12));
+
+        List<Node> serialPaths = serialApp.routeCalculator(1);
+        List<Node> parallelPaths = parallelApp.routeCalculator(4);
+
+        assertEquals(serialPaths.size(), parallelPaths.size());
+        for (int i = 0; i < serialPaths.size(); i++) {
+            assertEquals(serialPaths.get(i).toString(), parallelPaths.get(i).toString());
+        }
+    }
+
+    /**
+     * A multi-date run writes every date's files, and each matches a single-date run.
+     */
+    public void testPlanDatesMatchesSingleDates() throws Exception {
+        Path dir = Files.createTempDirectory("resultfiles");
+        try (LocalRestServer server = new LocalRestServer(Duration.ZERO, 20)) {
+            // The stand-in server is plain http, which App only accepts when told to
+            App.run(new String[]{"2023-10-05", server.getUrl()}, true, dir);
+            Path flightpath = dir.resolve("flightpath-2023-10-05.json");
+            byte[] single = Files.readAllBytes(flightpath);
+            Files.delete(flightpath);
+
+            App.BatchTimings timings = App.planDates(server.getUrl(), List.of("2023-10-04", "2023-10-05", "2023-10-06"), dir);
+            assertEquals(3, timings.dates());
+            assertTrue(Arrays.equals(single, Files.readAllBytes(flightpath)));
+            for (String date : List.of("2023-10-04", "2023-10-06")) {
+                assertTrue(Files.exists(dir.resolve("deliveries-" + date + ".json")));
+                assertTrue(Files.exists(dir.resolve("drone-" + date + ".geojson")));
+            }
+        } finally {
+            deleteDirectory(dir);
+        }
+    }
+
+    /**
+     * A result file that cannot be written fails the write, after the other files are written.
+     */
+    public void testResultFileFailureIsReported() throws Exception {
+        String date = "1999-01-01";
+        Path dir = Files.createTempDirectory("resultfiles");
+        Files.createDirectories(dir.resolve("deliveries-" + date + ".json"));
+        try {
+            App.writeResultFiles(dir, date, new Order[0], new FlightPathBuffer());
+            fail("Writing over a directory should fail");
+        } catch (IOException e) {
+            assertTrue(Files.exists(dir.resolve("flightpath-" + date + ".json")));
+            assertTrue(Files.exists(dir.resolve("drone-" + date + ".geojson")));
+        } finally {
+            deleteDirectory(dir);
+        }
+    }
+
+    private static void deleteDirectory(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(dir);
+    }
+
+    private List<Order> createOrders(Restaurant[] restaurants, int count) {
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Restaurant restaurant = restaurants[i % restaurants.length];
+            orders.add(new Order(String.format("ORDER%03d", i),
+                    LocalDate.of(2023, 11, 15),
+                    OrderStatus.VALID_BUT_NOT_DELIVERED, OrderValidationCode.NO_ERROR,
+                    restaurant.menu()[0].priceInPence() + 100,
+                    new Pizza[]{restaurant.menu()[0]},
+                    new CreditCardInformation("1234567891234567", "12/25", "123")));
+        }
+        return orders;
+    }
 }
@@ -0,0 +1,74 @@
+package uk.ac.ed.inf;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import uk.ac.ed.inf.ilp.data.LngLat;
+import uk.ac.ed.inf.ilp.data.NamedRegion;
+
+import java.util.Random;
+
+public class CompiledRegionTest extends TestCase {
+    public CompiledRegionTest(String testName) {
+        super(testName);
+    }
+
+    public static Test suite() {
+        return new TestSuite(CompiledRegionTest.class);
+    }
+
+    /**
+     * The compiled form must agree with the plain ray-casting walk over every vertex.
+     */
+    public void testMatchesRayCasting() {
+        Random random = new Random(7);
+        for (NamedRegion region : TestConstraints.getNoFlyZones()) {
+            CompiledRegion compiled = new CompiledRegion(region);
+            for (int i = 0; i < 20_000; i++) {
+                LngLat point = new LngLat(-3.1910 + random.nextDouble() * 0.0045, 55.9427 + random.nextDouble() * 0.0035);
+                assertEquals(region.name() + " " + point, rayCast(point, region), compiled.contains(point));
+            }
+        }
+    }
+
+    /**
+     * Points on the boundary count as inside, points beyond the bounding box as outside.
+     */
+    public void testBoundaryAndBoundingBox() {
+        CompiledRegion central = new CompiledRegion(TestConstraints.getCentralArea());
+
+        assertTrue(central.contains(new LngLat(-3.192473, 55.946233)));
+        assertTrue(central.contains(new LngLat(-3.188, 55.942617)));
+        assertTrue(central.contains(new LngLat(-3.188, 55.944)));
+        assertFalse(central.contains(new LngLat(-3.192474, 55.944)));
+        assertFalse(central.contains(new LngLat(-3.188, 55.946234)));
+        assertFalse(central.contains(new LngLat(-3.188, 56.0)));
+    }
+
+    /**
+     * Regions with fewer than three vertices contain nothing.
+     */
+    public void testDegenerateRegion() {
+        CompiledRegion line = new CompiledRegion(new NamedRegion("line", new LngLat[]{new LngLat(0, 0), new LngLat(1, 1)}));
+        assertFalse(line.contains(new LngLat(0.5, 0.5)));
+    }
+
+    // The ray-casting walk used by LngLatHandler.isInRegion before regions were compiled.
+    private boolean rayCast(LngLat position, NamedRegion region) {
+        LngLat[] v = region.vertices();
+        int n = v.length;
+        int count = 0, i = 0;
+        do {
+            int next = (i + 1) % n;
+            if (LngLatHandler.doIntersect(v[i].lng(), v[i].lat(), v[next].lng(), v[next].lat(),
+                    position.lng(), position.lat(), 9999.99, position.lat())) {
+                if (LngLatHandler.orientation(v[i].lng(), v[i].lat(), position.lng(), position.lat(), v[next].lng(), v[next].lat()) == 0) {
+                    return LngLatHandler.onSegment(v[i].lng(), v[i].lat(), position.lng(), position.lat(), v[next].lng(), v[next].lat());
+                }
+                count++;
+            }
+            i = next;
+        } while (i != 0);
+        return count % 2 == 1;
+    }
+}
@@ -0,0 +1,77 @@
+package uk.ac.ed.inf;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import uk.ac.ed.inf.ilp.data.Order;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+public class DeliveryPipelineTest extends TestCase {
+    public DeliveryPipelineTest(String testName) {
+        super(testName);
+    }
+
+    public static Test suite() {
+        return new TestSuite(DeliveryPipelineTest.class);
+    }
+
+    /**
+     * With tiny queues forcing every stage to wait for the next, the pipeline writes the same flight
+     * path as planning all the orders at once.
+     */
+    public void testMatchesSequentialRun() throws Exception {
+        String date = "2023-10-12";
+        try (LocalRestServer server = new LocalRestServer(Duration.ZERO, 80)) {
+            DeliveryPipeline pipeline = new DeliveryPipeline(server.getUrl(), 3, 2);
+            DeliveryPipeline.Result result = pipeline.run(date);
+            assertEquals(80, result.orders());
+            byte[] flightpath = Files.readAllBytes(Paths.get("resultfiles/flightpath-" + date + ".json"));
+            byte[] drone = Files.readAllBytes(Paths.get("resultfiles/drone-" + date + ".geojson"));
+            assertTrue(Files.exists(Paths.get("resultfiles/deliveries-" + date + ".json")));
+
+            RestService.ServiceData data = RestService.fetchAll(server.getUrl(), date);
+            List<Order> valid = App.validateOrders(data.orders(), new MenuIndex(data.restaurants()));
+            FlightPathBuffer expected = new App(data.noFlyZones(), data.centralArea(), data.restaurants(), valid).routeBuffer(1);
+            assertEquals(valid.size(), result.valid());
+            assertEquals(expected.size(), result.moves());
+
+            Path expectedFlightpath = Files.createTempFile("flightpath", ".json");
+            Path expectedDrone = Files.createTempFile("drone", ".geojson");
+            try {
+                FileOutputter.writeFlightpathJson(expected, expectedFlightpath);
+                FileOutputter.writeGeoJson(expected, expectedDrone);
+                assertTrue(Arrays.equals(Files.readAllBytes(expectedFlightpath), flightpath));
+                assertTrue(Arrays.equals(Files.readAllBytes(expectedDrone), drone));
+            } finally {
+                Files.delete(expectedFlightpath);
+                Files.delete(expectedDrone);
+            }
+
+            for (DeliveryPipeline.QueueStats stats : pipeline.getQueueStats().values()) {
+                assertEquals(0, stats.depth());
+                assertTrue(stats.maxDepth() <= 2);
+                assertTrue(stats.meanDepth() >= 0 && stats.meanDepth() <= stats.maxDepth());
+            }
+        }
+    }
+
+    /**
+     * A failing service stops every stage and reports the failure.
+     */
+    public void testFailureStopsPipeline() {
+        DeliveryPipeline pipeline = new DeliveryPipeline("http://localhost:1", 2, 2);
+        try {
+            pipeline.run("2023-10-12");
+            fail("Expected the pipeline to fail");
+        } catch (Exception e) {
+            assertTrue(e.toString(), e instanceof IOException || e instanceof IllegalStateException);
+        }
+    }
+}
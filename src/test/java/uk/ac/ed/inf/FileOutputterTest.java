@@ -8,8 +8,12 @@ import uk.ac.ed.inf.ilp.constant.OrderValidationCode;
 import uk.ac.ed.inf.ilp.data.LngLat;
 import uk.ac.ed.inf.ilp.data.Order;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Stream;
 
 
 public class FileOutputterTest extends TestCase {
@@ -183,4 +187,108 @@ public class FileOutputterTest extends TestCase {
         String actual = FileOutputter.writeFlightpathJson(nodes);
         assertEquals(expected, actual);
     }
+
+    /**
+     * Test for verifying that streamed flight path files have the same content as the string output.
+     */
+    public void testStreamedFlightpathJson() throws IOException {
+        List<Node> nodes = new ArrayList<>();
+        nodes.add(new Node(new LngLat(0, 0), 0, new LngLat(10, 10), "Test1"));
+        nodes.add(new Node(new LngLat(10, 10), 0, new LngLat(20, 20), "Test2"));
+
+        String expected = String.format(
+                "[{\"orderNo\":\"%s\",\"fromLongitude\":%d,\"fromLatitude\":%d,\"angle\":%d,\"toLatitude\":%d,\"toLongitude\":%d}," +
+                        "{\"orderNo\":\"%s\",\"fromLongitude\":%d,\"fromLatitude\":%d,\"angle\":%d,\"toLatitude\":%d,\"toLongitude\":%d}]",
+                "Test1", 0, 0, 0, 10, 10,
+                "Test2", 10, 10, 0, 20, 20
+        );
+
+        Path file = Files.createTempFile("flightpath", ".json");
+        try {
+            FileOutputter.writeFlightpathJson(nodes.iterator(), file);
+            assertEquals(expected, Files.readString(file));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Test for verifying that streamed GeoJSON files have the same content as the string output.
+     */
+    public void testStreamedGeoJson() throws IOException {
+        List<Node> nodes = new ArrayList<>();
+        nodes.add(new Node(new LngLat(-3.186874, 55.944494), 22.5, new LngLat(-3.18673542, 55.94455140), "Test"));
+        nodes.add(new Node(new LngLat(-3.18673542, 55.94455140), 999, new LngLat(-3.18673542, 55.94455140), "Test"));
+
+        Path file = Files.createTempFile("drone", ".geojson");
+        try {
+            FileOutputter.writeGeoJson(nodes.iterator(), file);
+            assertEquals(FileOutputter.writeGeoJson(nodes), Files.readString(file));
+
+            FileOutputter.writeGeoJson(new ArrayList<Node>().iterator(), file);
+            assertEquals(FileOutputter.writeGeoJson(new ArrayList<>()), Files.readString(file));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Test for verifying that files written from a flight path buffer match those written from nodes.
+     */
+    public void testBufferOutputMatchesNodes() throws IOException {
+        List<Node> nodes = new ArrayList<>();
+        nodes.add(new Node(new LngLat(-3.186874, 55.944494), 22.5, new LngLat(-3.18673542, 55.94455140), "Test"));
+        nodes.add(new Node(new LngLat(-3.18673542, 55.94455140), 999, new LngLat(-3.18673542, 55.94455140), null));
+        FlightPathBuffer buffer = FlightPathBuffer.of(nodes);
+
+        Path fromNodes = Files.createTempFile("fromNodes", ".json");
+        Path fromBuffer = Files.createTempFile("fromBuffer", ".json");
+        try {
+            FileOutputter.writeFlightpathJson(nodes.iterator(), fromNodes);
+            FileOutputter.writeFlightpathJson(buffer, fromBuffer);
+            assertEquals(Files.readString(fromNodes), Files.readString(fromBuffer));
+
+            FileOutputter.writeGeoJson(nodes.iterator(), fromNodes);
+            FileOutputter.writeGeoJson(buffer, fromBuffer);
+            assertEquals(Files.readString(fromNodes), Files.readString(fromBuffer));
+        } finally {
+            Files.delete(fromNodes);
+            Files.delete(fromBuffer);
+        }
+    }
+
+    /**
+     * Test for verifying that a route writer closed without finishing leaves the existing files as
+     * they were and no temporary files behind.
+     */
+    public void testUnfinishedRouteWriterKeepsOldFiles() throws IOException {
+        FlightPathBuffer route = new FlightPathBuffer();
+        route.add(-3.186874, 55.944494, 22.5, -3.18673542, 55.94455140, route.orderIndex("Test"));
+
+        Path dir = Files.createTempDirectory("routewriter");
+        Path flightpath = dir.resolve("flightpath.json");
+        Path drone = dir.resolve("drone.geojson");
+        try {
+            try (FileOutputter.RouteWriter writer = FileOutputter.openRouteWriter(flightpath, drone)) {
+                writer.append(route);
+                writer.finish();
+            }
+            String completeFlightpath = Files.readString(flightpath);
+            String completeDrone = Files.readString(drone);
+
+            try (FileOutputter.RouteWriter writer = FileOutputter.openRouteWriter(flightpath, drone)) {
+                writer.append(route);
+                writer.append(route);
+            }
+            assertEquals(completeFlightpath, Files.readString(flightpath));
+            assertEquals(completeDrone, Files.readString(drone));
+            try (Stream<Path> files = Files.list(dir)) {
+                assertEquals(2, files.count());
+            }
+        } finally {
+            Files.deleteIfExists(flightpath);
+            Files.deleteIfExists(drone);
+            Files.delete(dir);
+        }
+    }
 }
\ No newline at end of file
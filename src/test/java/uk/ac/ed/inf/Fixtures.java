@@ -0,0 +1,121 @@
+package uk.ac.ed.inf;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import uk.ac.ed.inf.ilp.constant.OrderStatus;
+import uk.ac.ed.inf.ilp.constant.OrderValidationCode;
+import uk.ac.ed.inf.ilp.constant.SystemConstants;
+import uk.ac.ed.inf.ilp.data.CreditCardInformation;
+import uk.ac.ed.inf.ilp.data.NamedRegion;
+import uk.ac.ed.inf.ilp.data.Order;
+import uk.ac.ed.inf.ilp.data.Pizza;
+import uk.ac.ed.inf.ilp.data.Restaurant;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.Random;
+
+/**
+ * Fixture data shared by the local stand-in server and the benchmarks: the central area, no-fly
+ * zones and restaurants as served by the REST service, read from src/test/resources/fixtures, and
+ * reproducible synthetic orders.
+ */
+public final class Fixtures {
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    static {
+        objectMapper.registerModule(new JavaTimeModule());
+        objectMapper.enable(DeserializationFeature.ACCEPT_SINGLE_VALUE_AS_ARRAY);
+    }
+
+    private Fixtures() {
+    }
+
+    public static NamedRegion centralArea() {
+        return read("centralArea.json", NamedRegion[].class)[0];
+    }
+
+    public static NamedRegion[] noFlyZones() {
+        return read("noFlyZones.json", NamedRegion[].class);
+    }
+
+    public static Restaurant[] restaurants() {
+        return read("restaurants.json", Restaurant[].class);
+    }
+
+    /**
+     * @param name The name of a file in the fixtures directory.
+     * @return The content of the file.
+     * @throws IOException if the fixture is missing or cannot be read.
+     */
+    public static byte[] bytes(String name) throws IOException {
+        try (InputStream in = Fixtures.class.getResourceAsStream("/fixtures/" + name)) {
+            if (in == null) {
+                throw new IOException("Missing fixture: " + name);
+            }
+            return in.readAllBytes();
+        }
+    }
+
+    /**
+     * Generates orders for a date. Most are valid; the rest fail one check each, so every
+     * validation step is exercised. The same seed always gives the same orders.
+     *
+     * @param restaurants The restaurants to order from.
+     * @param date        The date of the orders; the card expiry dates are after it.
+     * @param count       Number of orders to generate.
+     * @param seed        Seed for the random generator.
+     * @return Array of orders.
+     */
+    public static Order[] orders(Restaurant[] restaurants, LocalDate date, int count, long seed) {
+        Random random = new Random(seed);
+        Order[] orders = new Order[count];
+        for (int i = 0; i < count; i++) {
+            Restaurant restaurant = restaurants[random.nextInt(restaurants.length)];
+            Pizza[] pizzas = new Pizza[1 + random.nextInt(SystemConstants.MAX_PIZZAS_PER_ORDER)];
+            int total = SystemConstants.ORDER_CHARGE_IN_PENCE;
+            for (int p = 0; p < pizzas.length; p++) {
+                pizzas[p] = restaurant.menu()[random.nextInt(restaurant.menu().length)];
+                total += pizzas[p].priceInPence();
+            }
+            String cardNumber = luhnCardNumber(random);
+            String expiry = String.format("%02d/%02d", 1 + random.nextInt(12), (date.getYear() % 100) + 1 + random.nextInt(4));
+            String cvv = String.format("%03d", random.nextInt(1000));
+
+            switch (random.nextInt(10)) {
+                case 0 -> cvv = "12";
+                case 1 -> cardNumber = cardNumber.substring(1) + "x";
+                case 2 -> expiry = "01/20";
+                case 3 -> total += 1;
+                default -> { }
+            }
+            orders[i] = new Order(String.format("%08X", random.nextInt()), date, OrderStatus.UNDEFINED, OrderValidationCode.UNDEFINED,
+                    total, pizzas, new CreditCardInformation(cardNumber, expiry, cvv));
+        }
+        return orders;
+    }
+
+    // Random 16-digit number with a valid Luhn check digit.
+    private static String luhnCardNumber(Random random) {
+        StringBuilder number = new StringBuilder(16);
+        int sum = 0;
+        for (int i = 0; i < 15; i++) {
+            int digit = random.nextInt(10);
+            int d = i % 2 == 0 ? digit * 2 : digit;
+            sum += d / 10 + d % 10;
+            number.append(digit);
+        }
+        return number.append((10 - sum % 10) % 10).toString();
+    }
+
+    private static <T> T read(String name, Class<T> type) {
+        try {
+            return objectMapper.readValue(bytes(name), type);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package uk.ac.ed.inf;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import uk.ac.ed.inf.ilp.data.LngLat;
+
+import java.util.List;
+
+public class FlightPathBufferTest extends TestCase {
+    public FlightPathBufferTest(String testName) {
+        super(testName);
+    }
+
+    public static Test suite() {
+        return new TestSuite(FlightPathBufferTest.class);
+    }
+
+    /**
+     * Moves survive the round trip from Nodes to the buffer and back, including missing order numbers.
+     */
+    public void testNodeRoundTrip() {
+        List<Node> nodes = List.of(
+                new Node(new LngLat(0, 0), 45, new LngLat(1, 1), "A"),
+                new Node(new LngLat(1, 1), 999, new LngLat(1, 1), "B"),
+                new Node(new LngLat(1, 1), 225, new LngLat(0, 0)));
+
+        FlightPathBuffer buffer = FlightPathBuffer.of(nodes);
+
+        assertEquals(3, buffer.size());
+        assertEquals(nodes, buffer.toNodes());
+        assertEquals("B", buffer.getOrderNo(1));
+        assertNull(buffer.getOrderNo(2));
+        assertEquals(225.0, buffer.getAngle(2));
+    }
+
+    /**
+     * Appending relabels the moves and grows the buffer past its initial capacity.
+     */
+    public void testAddAllRelabelsAndGrows() {
+        FlightPathBuffer route = new FlightPathBuffer(1);
+        for (int i = 0; i < 10; i++) {
+            route.add(i, i, 0, i + 1, i, FlightPathBuffer.NO_ORDER);
+        }
+
+        FlightPathBuffer day = new FlightPathBuffer(1);
+        day.addAll(route, "First");
+        day.addAll(route, "Second");
+        day.addAll(route, "First");
+
+        assertEquals(30, day.size());
+        assertEquals("First", day.getOrderNo(0));
+        assertEquals("Second", day.getOrderNo(10));
+        assertEquals("First", day.getOrderNo(29));
+        assertEquals(9.0, day.getFromLng(29));
+        assertEquals(10.0, day.getToLng(29));
+
+        FlightPathBuffer copy = new FlightPathBuffer();
+        copy.addAll(day);
+        assertEquals(day.toNodes(), copy.toNodes());
+    }
+
+    /**
+     * Indices beyond the stored moves are rejected even when the arrays have spare capacity.
+     */
+    public void testIndexOutOfBounds() {
+        FlightPathBuffer buffer = new FlightPathBuffer(8);
+        buffer.add(0, 0, 0, 1, 0, buffer.orderIndex("A"));
+        try {
+            buffer.getFromLng(1);
+            fail("Index past the size should be rejected");
+        } catch (IndexOutOfBoundsException e) {
+        }
+    }
+}
@@ -324,4 +324,45 @@ public class FlightPathTest extends TestCase {
 
         assertEquals(2, hoverEvents);
     }
+
+    /**
+     * A U-shaped no-fly zone opening towards the start trapped the greedy walk; the A* planner
+     * must route around it without crossing any edge and with a short path.
+     */
+    public void testConcaveNoFlyZone() {
+        NamedRegion[] noFlyZones = new NamedRegion[]{
+                new NamedRegion("U", new LngLat[]{
+                        new LngLat(0.001, -0.001),
+                        new LngLat(0.0015, -0.001),
+                        new LngLat(0.0015, 0.001),
+                        new LngLat(0.001, 0.001),
+                        new LngLat(0.001, 0.0009),
+                        new LngLat(0.0014, 0.0009),
+                        new LngLat(0.0014, -0.0009),
+                        new LngLat(0.001, -0.0009)
+                })
+        };
+        NamedRegion central = new NamedRegion("central", new LngLat[]{
+                new LngLat(-1, -1),
+                new LngLat(-1, 1),
+                new LngLat(1, 1),
+                new LngLat(1, -1)
+        });
+
+        FlightPath flightPath = new FlightPath(noFlyZones, central);
+        List<Node> route = flightPath.findTotalPath(new LngLat(0, 0), new LngLat(0.0025, 0), "Test");
+
+        LngLatHandler handler = new LngLatHandler();
+        int hoverCount = 0;
+        for (Node node : route) {
+            if (node.getAngle() == 999) {
+                hoverCount++;
+            } else {
+                assertFalse(handler.pathGoesThroughNoFlyZones(node.getStart(), node.getEnd(), noFlyZones));
+            }
+        }
+        assertEquals(2, hoverCount);
+        assertTrue("Route should go around the zone without detours", route.size() <= 50);
+        assertTrue(flightPath.getExpandedNodeCount() > 0);
+    }
 }
\ No newline at end of file
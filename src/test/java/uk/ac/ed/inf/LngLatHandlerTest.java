@@ -7,6 +7,7 @@ import uk.ac.ed.inf.ilp.data.LngLat;
 import uk.ac.ed.inf.ilp.data.NamedRegion;
 
 import static uk.ac.ed.inf.ilp.constant.SystemConstants.CENTRAL_REGION_NAME;
+import static uk.ac.ed.inf.ilp.constant.SystemConstants.DRONE_MOVE_DISTANCE;
 
 public class LngLatHandlerTest
         extends TestCase {
@@ -602,4 +603,24 @@ public class LngLatHandlerTest
         boolean arePositionsClose = distanceHandler.isCloseTo(firstPosition, secondPosition);
         assertFalse(arePositionsClose);
     }
+
+    /**
+     * Tests that the move table gives exactly the positions of the trigonometric formula, for every
+     * direction and for angles given either way, including 360 degrees.
+     */
+    public void testMoveTableMatchesTrigonometry() {
+        LngLatHandler handler = new LngLatHandler();
+        LngLat start = new LngLat(-3.186874, 55.944494);
+        for (int direction = 0; direction <= LngLatHandler.DIRECTIONS; direction++) {
+            double angle = direction * 22.5;
+            double expectedLng = start.lng() + DRONE_MOVE_DISTANCE * Math.cos(Math.toRadians(angle));
+            double expectedLat = start.lat() + DRONE_MOVE_DISTANCE * Math.sin(Math.toRadians(angle));
+
+            assertEquals(new LngLat(expectedLng, expectedLat), handler.nextPosition(start, angle));
+            if (direction < LngLatHandler.DIRECTIONS) {
+                assertEquals(expectedLng, LngLatHandler.nextLng(start.lng(), direction));
+                assertEquals(expectedLat, LngLatHandler.nextLat(start.lat(), direction));
+            }
+        }
+    }
 }
\ No newline at end of file
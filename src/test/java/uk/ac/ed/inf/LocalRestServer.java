@@ -0,0 +1,148 @@
+package uk.ac.ed.inf;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import uk.ac.ed.inf.ilp.data.Restaurant;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Local stand-in for the ILP REST service, so load and timing tests can run without network access.
+ * Serves /isAlive, /restaurants, /centralArea and /noFlyZones from the fixture files, and
+ * /orders/{date} from fixtures/orders-{date}.json if present, otherwise from generated orders.
+ * Every response can be delayed to simulate network latency.
+ */
+public class LocalRestServer implements AutoCloseable {
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    static {
+        objectMapper.registerModule(new JavaTimeModule());
+        objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final Duration latency;
+    private final int ordersPerDay;
+    private final Restaurant[] restaurants;
+    private final Map<String, byte[]> ordersByDate = new ConcurrentHashMap<>();
+
+    /**
+     * Starts a server on a free loopback port.
+     *
+     * @param latency      Delay added to every response.
+     * @param ordersPerDay Number of orders generated for dates without an orders fixture.
+     * @throws IOException if the server cannot be started.
+     */
+    public LocalRestServer(Duration latency, int ordersPerDay) throws IOException {
+        this(0, latency, ordersPerDay);
+    }
+
+    /**
+     * Starts a server on the given loopback port.
+     *
+     * @param port         Port to listen on, or 0 for any free port.
+     * @param latency      Delay added to every response.
+     * @param ordersPerDay Number of orders generated for dates without an orders fixture.
+     * @throws IOException if the server cannot be started.
+     */
+    public LocalRestServer(int port, Duration latency, int ordersPerDay) throws IOException {
+        this.latency = latency;
+        this.ordersPerDay = ordersPerDay;
+        this.restaurants = Fixtures.restaurants();
+
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.setExecutor(executor);
+        server.createContext("/isAlive", exchange -> respond(exchange, "true".getBytes(StandardCharsets.UTF_8)));
+        server.createContext("/restaurants", exchange -> respond(exchange, Fixtures.bytes("restaurants.json")));
+        server.createContext("/centralArea", exchange -> respond(exchange, Fixtures.bytes("centralArea.json")));
+        server.createContext("/noFlyZones", exchange -> respond(exchange, Fixtures.bytes("noFlyZones.json")));
+        server.createContext("/orders/", this::handleOrders);
+        server.start();
+    }
+
+    /**
+     * @return The base URL of the server, without a trailing slash.
+     */
+    public String getUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    private void handleOrders(HttpExchange exchange) throws IOException {
+        String date = exchange.getRequestURI().getPath().substring("/orders/".length());
+        try {
+            LocalDate.parse(date);
+        } catch (DateTimeParseException e) {
+            exchange.sendResponseHeaders(400, -1);
+            exchange.close();
+            return;
+        }
+        respond(exchange, ordersByDate.computeIfAbsent(date, this::ordersFor));
+    }
+
+    private byte[] ordersFor(String date) {
+        try (InputStream in = LocalRestServer.class.getResourceAsStream("/fixtures/orders-" + date + ".json")) {
+            if (in != null) {
+                return in.readAllBytes();
+            }
+            // The same date always gives the same orders
+            LocalDate day = LocalDate.parse(date);
+            return objectMapper.writeValueAsBytes(Fixtures.orders(restaurants, day, ordersPerDay, day.toEpochDay()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void respond(HttpExchange exchange, byte[] body) throws IOException {
+        try {
+            if (!latency.isZero()) {
+                Thread.sleep(latency.toMillis());
+            }
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    /**
+     * Runs the server until the process is stopped.
+     *
+     * @param args Command-line arguments: port, latency in milliseconds and orders per day.
+     * @throws IOException if the server cannot be started.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        Duration latency = Duration.ofMillis(args.length > 1 ? Long.parseLong(args[1]) : 0);
+        int ordersPerDay = args.length > 2 ? Integer.parseInt(args[2]) : 50;
+        LocalRestServer server = new LocalRestServer(port, latency, ordersPerDay);
+        System.out.println("Serving on " + server.getUrl());
+    }
+}
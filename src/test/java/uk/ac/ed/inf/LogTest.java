@@ -0,0 +1,84 @@
+package uk.ac.ed.inf;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+public class LogTest extends TestCase {
+    public LogTest(String testName) {
+        super(testName);
+    }
+
+    public static Test suite() {
+        return new TestSuite(LogTest.class);
+    }
+
+    /**
+     * Messages are written in order once flushed, to stdout or stderr by level, and DEBUG messages
+     * are not even built at the default level.
+     */
+    public void testLevelsAndFlush() {
+        assertEquals(Log.Level.INFO, Log.getLevel());
+        assertFalse(Log.isDebugEnabled());
+
+        PrintStream out = System.out;
+        PrintStream err = System.err;
+        ByteArrayOutputStream capturedOut = new ByteArrayOutputStream();
+        ByteArrayOutputStream capturedErr = new ByteArrayOutputStream();
+        Log.flush();
+        System.setOut(new PrintStream(capturedOut, true));
+        System.setErr(new PrintStream(capturedErr, true));
+        try {
+            Log.debug(() -> {
+                throw new AssertionError("Debug message should not be built");
+            });
+            for (int i = 0; i < 100; i++) {
+                Log.info("info " + i);
+            }
+            Log.warn("warning");
+            Log.error("failure", new IllegalStateException("cause"));
+            Log.flush();
+        } finally {
+            System.setOut(out);
+            System.setErr(err);
+        }
+
+        String[] lines = capturedOut.toString().split("\\R");
+        assertEquals(100, lines.length);
+        for (int i = 0; i < 100; i++) {
+            assertEquals("info " + i, lines[i]);
+        }
+        String errors = capturedErr.toString();
+        assertTrue(errors, errors.startsWith("warning" + System.lineSeparator() + "failure"));
+        assertTrue(errors, errors.contains("java.lang.IllegalStateException: cause"));
+    }
+
+    /**
+     * With stderr only, INFO messages go to stderr and nothing is written to stdout.
+     */
+    public void testStderrOnly() {
+        PrintStream out = System.out;
+        PrintStream err = System.err;
+        ByteArrayOutputStream capturedOut = new ByteArrayOutputStream();
+        ByteArrayOutputStream capturedErr = new ByteArrayOutputStream();
+        Log.flush();
+        System.setOut(new PrintStream(capturedOut, true));
+        System.setErr(new PrintStream(capturedErr, true));
+        Log.setStderrOnly(true);
+        try {
+            Log.info("info");
+            Log.warn("warning");
+            Log.flush();
+        } finally {
+            Log.setStderrOnly(false);
+            System.setOut(out);
+            System.setErr(err);
+        }
+
+        assertEquals(0, capturedOut.size());
+        assertEquals("info" + System.lineSeparator() + "warning" + System.lineSeparator(), capturedErr.toString());
+    }
+}
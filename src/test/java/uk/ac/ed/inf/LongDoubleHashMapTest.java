@@ -0,0 +1,50 @@
+package uk.ac.ed.inf;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+public class LongDoubleHashMapTest extends TestCase {
+    public LongDoubleHashMapTest(String testName) {
+        super(testName);
+    }
+
+    public static Test suite() {
+        return new TestSuite(LongDoubleHashMapTest.class);
+    }
+
+    /**
+     * The map must agree with a HashMap for packed cell keys near the origin, across several resizes.
+     */
+    public void testMatchesHashMap() {
+        LongDoubleHashMap map = new LongDoubleHashMap(4);
+        Map<Long, Double> expected = new HashMap<>();
+        Random random = new Random(2);
+        for (int i = 0; i < 50_000; i++) {
+            long column = random.nextInt(401) - 200;
+            long row = random.nextInt(401) - 200;
+            long key = (column << 32) | (row & 0xFFFFFFFFL);
+            assertEquals(expected.getOrDefault(key, Double.MAX_VALUE), map.get(key, Double.MAX_VALUE));
+            double value = random.nextDouble();
+            expected.put(key, value);
+            map.put(key, value);
+        }
+        assertEquals(expected.size(), map.size());
+    }
+
+    /**
+     * The key used internally to mark free slots can still be stored and replaced.
+     */
+    public void testFreeMarkerKey() {
+        LongDoubleHashMap map = new LongDoubleHashMap(4);
+        assertEquals(-1.0, map.get(Long.MIN_VALUE, -1.0));
+        map.put(Long.MIN_VALUE, 2.5);
+        map.put(Long.MIN_VALUE, 3.5);
+        assertEquals(3.5, map.get(Long.MIN_VALUE, -1.0));
+        assertEquals(1, map.size());
+    }
+}
@@ -0,0 +1,49 @@
+package uk.ac.ed.inf;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+public class LongHashSetTest extends TestCase {
+    public LongHashSetTest(String testName) {
+        super(testName);
+    }
+
+    public static Test suite() {
+        return new TestSuite(LongHashSetTest.class);
+    }
+
+    /**
+     * The set must agree with a HashSet for packed cell keys near the origin, across several resizes.
+     */
+    public void testMatchesHashSet() {
+        LongHashSet set = new LongHashSet(4);
+        Set<Long> expected = new HashSet<>();
+        Random random = new Random(1);
+        for (int i = 0; i < 50_000; i++) {
+            long column = random.nextInt(401) - 200;
+            long row = random.nextInt(401) - 200;
+            long key = (column << 32) | (row & 0xFFFFFFFFL);
+            assertEquals(expected.contains(key), set.contains(key));
+            assertEquals(expected.add(key), set.add(key));
+        }
+        assertEquals(expected.size(), set.size());
+    }
+
+    /**
+     * The value used internally to mark free slots can still be stored.
+     */
+    public void testFreeMarkerValue() {
+        LongHashSet set = new LongHashSet(4);
+        assertFalse(set.contains(Long.MIN_VALUE));
+        assertTrue(set.add(Long.MIN_VALUE));
+        assertFalse(set.add(Long.MIN_VALUE));
+        assertTrue(set.contains(Long.MIN_VALUE));
+        assertTrue(set.add(0));
+        assertEquals(2, set.size());
+    }
+}
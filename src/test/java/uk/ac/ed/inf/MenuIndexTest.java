@@ -0,0 +1,77 @@
+package uk.ac.ed.inf;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import uk.ac.ed.inf.ilp.data.LngLat;
+import uk.ac.ed.inf.ilp.data.Pizza;
+import uk.ac.ed.inf.ilp.data.Restaurant;
+
+import java.time.DayOfWeek;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+
+public class MenuIndexTest extends TestCase {
+    public MenuIndexTest(String testName) {
+        super(testName);
+    }
+
+    public static Test suite() {
+        return new TestSuite(MenuIndexTest.class);
+    }
+
+    /**
+     * Pizzas match on name and price, and the first restaurant selling every pizza is found.
+     */
+    public void testFindRestaurant() {
+        Restaurant[] restaurants = TestConstraints.getDefinedRestaurants();
+        MenuIndex index = new MenuIndex(restaurants);
+
+        assertEquals(0, index.findRestaurant(new Pizza[]{new Pizza("Margarita", 1000), new Pizza("Calzone", 1400)}));
+        assertEquals(1, index.findRestaurant(new Pizza[]{new Pizza("Vegan Delight", 1100)}));
+        assertEquals(-1, index.findRestaurant(new Pizza[]{new Pizza("Margarita", 999)}));
+        assertEquals(-1, index.findRestaurant(new Pizza[]{new Pizza("Margarita", 1000), new Pizza("Meat Lover", 1400)}));
+        assertEquals(2, index.countRestaurants(new Pizza[]{new Pizza("Margarita", 1000), new Pizza("Meat Lover", 1400)}));
+        assertEquals(0, index.countRestaurants(new Pizza[]{new Pizza("Unknown", 1000)}));
+    }
+
+    /**
+     * For random orders over overlapping menus, the index agrees with scanning every menu.
+     */
+    public void testMatchesMenuScan() {
+        Pizza[] pizzas = {new Pizza("A", 100), new Pizza("B", 200), new Pizza("C", 300), new Pizza("A", 150), new Pizza("D", 400)};
+        Restaurant[] restaurants = {
+                restaurant(pizzas[0], pizzas[1]),
+                restaurant(pizzas[1], pizzas[2], pizzas[1]),
+                restaurant(pizzas[3]),
+                restaurant(pizzas[2], pizzas[0])
+        };
+        MenuIndex index = new MenuIndex(restaurants);
+
+        Random random = new Random(42);
+        for (int n = 0; n < 2000; n++) {
+            Pizza[] order = new Pizza[random.nextInt(4)];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = pizzas[random.nextInt(pizzas.length)];
+            }
+
+            int first = -1, touched = 0;
+            for (int r = 0; r < restaurants.length; r++) {
+                long sold = Arrays.stream(order).filter(new HashSet<>(Arrays.asList(restaurants[r].menu()))::contains).count();
+                if (sold == order.length && first < 0) {
+                    first = r;
+                }
+                if (sold > 0 || order.length == 0) {
+                    touched++;
+                }
+            }
+            assertEquals(Arrays.toString(order), first, index.findRestaurant(order));
+            assertEquals(Arrays.toString(order), Math.min(touched, 2), index.countRestaurants(order));
+        }
+    }
+
+    private static Restaurant restaurant(Pizza... menu) {
+        return new Restaurant("Test", new LngLat(0, 0), new DayOfWeek[]{DayOfWeek.MONDAY}, menu);
+    }
+}
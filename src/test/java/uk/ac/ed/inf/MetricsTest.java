@@ -0,0 +1,84 @@
+package uk.ac.ed.inf;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class MetricsTest extends TestCase {
+    public MetricsTest(String testName) {
+        super(testName);
+    }
+
+    public static Test suite() {
+        return new TestSuite(MetricsTest.class);
+    }
+
+    /**
+     * Every value falls in a bucket whose highest value is at least the value and within 1/16 of it.
+     */
+    public void testHistogramBuckets() {
+        long[] values = {0, 1, 15, 16, 17, 31, 32, 33, 1000, 123_456_789, Long.MAX_VALUE};
+        for (long value : values) {
+            int bucket = Metrics.Histogram.bucket(value);
+            long highest = Metrics.Histogram.highestValue(bucket);
+            assertTrue(value + " -> " + highest, highest >= value);
+            assertTrue(value + " -> " + highest, highest - value <= value / 16);
+            if (bucket > 0) {
+                assertTrue(Metrics.Histogram.highestValue(bucket - 1) < value);
+            }
+        }
+    }
+
+    /**
+     * Percentiles are exact for small values and close for large ones.
+     */
+    public void testHistogramPercentiles() {
+        Metrics.Histogram histogram = Metrics.histogram("test.percentiles");
+        for (int i = 1; i <= 10; i++) {
+            histogram.record(i);
+        }
+        assertEquals(10, histogram.getCount());
+        assertEquals(1, histogram.getMin());
+        assertEquals(10, histogram.getMax());
+        assertEquals(5.5, histogram.getMean(), 1e-9);
+        assertEquals(5, histogram.getPercentile(50));
+        assertEquals(9, histogram.getPercentile(90));
+        assertEquals(10, histogram.getPercentile(100));
+
+        histogram.record(1_000_000);
+        long p100 = histogram.getPercentile(100);
+        assertEquals(1_000_000, p100);
+        assertTrue(histogram.getPercentile(95) >= 10);
+    }
+
+    /**
+     * Counters and histograms with the same name are shared, and appear in the JSON dump.
+     */
+    public void testRegistryAndJson() {
+        Metrics.counter("test.counter").add(3);
+        Metrics.counter("test.counter").increment();
+        assertEquals(4, Metrics.counter("test.counter").get());
+        assertSame(Metrics.histogram("test.histogram"), Metrics.histogram("test.histogram"));
+        Metrics.histogram("test.histogram").record(42);
+
+        String json = Metrics.toJson();
+        assertTrue(json, json.contains("\"test.counter\":4"));
+        assertTrue(json, json.contains("\"test.histogram\":{\"count\":1,\"min\":42"));
+
+        Metrics.reset();
+        assertEquals(0, Metrics.counter("test.counter").get());
+        assertEquals(0, Metrics.histogram("test.histogram").getCount());
+    }
+
+    /**
+     * Planning a route records the search and its geometry tests.
+     */
+    public void testFlightPathRecordsSearches() {
+        long planned = Metrics.counter("flightpath.routesPlanned").get();
+        long tests = Metrics.counter("flightpath.geometryTests").get();
+        FlightPath flightPath = new FlightPath(TestConstraints.getNoFlyZones(), TestConstraints.getCentralArea());
+        flightPath.findTotalPath(TestConstraints.getDefinedRestaurants()[0].location(), App.DROP_OFF_LOCATION, "Test");
+        assertEquals(planned + 1, Metrics.counter("flightpath.routesPlanned").get());
+        assertTrue(Metrics.counter("flightpath.geometryTests").get() > tests);
+    }
+}
@@ -0,0 +1,69 @@
+package uk.ac.ed.inf;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import uk.ac.ed.inf.ilp.data.LngLat;
+import uk.ac.ed.inf.ilp.data.NamedRegion;
+
+import java.util.Random;
+
+import static uk.ac.ed.inf.ilp.constant.SystemConstants.DRONE_MOVE_DISTANCE;
+
+public class NoFlyZoneIndexTest extends TestCase {
+    public NoFlyZoneIndexTest(String testName) {
+        super(testName);
+    }
+
+    public static Test suite() {
+        return new TestSuite(NoFlyZoneIndexTest.class);
+    }
+
+    /**
+     * The index must agree with the brute-force edge scan for moves all over the central area.
+     */
+    public void testMatchesEdgeScan() {
+        NamedRegion[] noFlyZones = TestConstraints.getNoFlyZones();
+        NoFlyZoneIndex index = new NoFlyZoneIndex(noFlyZones);
+        LngLatHandler handler = new LngLatHandler();
+        Random random = new Random(42);
+
+        int crossings = 0;
+        for (int i = 0; i < 100_000; i++) {
+            LngLat start = new LngLat(-3.1925 + random.nextDouble() * 0.0085, 55.9426 + random.nextDouble() * 0.0037);
+            LngLat end = handler.nextPosition(start, random.nextInt(16) * 22.5);
+            boolean expected = handler.pathGoesThroughNoFlyZones(start, end, noFlyZones);
+            assertEquals(expected, index.pathGoesThroughNoFlyZones(start, end));
+            if (expected) {
+                crossings++;
+            }
+        }
+        assertTrue("Some moves should cross a zone edge", crossings > 0);
+    }
+
+    /**
+     * Moves that touch a vertex or run along an edge count as crossing, as in the edge scan.
+     */
+    public void testTouchingEdges() {
+        NamedRegion square = new NamedRegion("square", new LngLat[]{
+                new LngLat(0, 0),
+                new LngLat(0.001, 0),
+                new LngLat(0.001, 0.001),
+                new LngLat(0, 0.001)
+        });
+        NoFlyZoneIndex index = new NoFlyZoneIndex(new NamedRegion[]{square});
+
+        assertTrue(index.pathGoesThroughNoFlyZones(new LngLat(-DRONE_MOVE_DISTANCE, 0), new LngLat(0, 0)));
+        assertTrue(index.pathGoesThroughNoFlyZones(new LngLat(0.0002, 0), new LngLat(0.0004, 0)));
+        assertFalse(index.pathGoesThroughNoFlyZones(new LngLat(0.0002, 0.0002), new LngLat(0.0004, 0.0004)));
+        assertFalse(index.pathGoesThroughNoFlyZones(new LngLat(0.5, 0.5), new LngLat(0.6, 0.6)));
+    }
+
+    /**
+     * Without zones nothing is ever crossed.
+     */
+    public void testNoZones() {
+        NoFlyZoneIndex index = new NoFlyZoneIndex(new NamedRegion[0]);
+        assertFalse(index.pathGoesThroughNoFlyZones(new LngLat(0, 0), new LngLat(1, 1)));
+    }
+}
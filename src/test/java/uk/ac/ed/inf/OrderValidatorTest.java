@@ -530,4 +530,140 @@ public class OrderValidatorTest extends TestCase {
                 order.getCreditCardInformation().getCreditCardExpiry()
         );
     }
+
+    /**
+     * The single-pass card check agrees with the regular expression, Luhn and LocalDate checks it replaced,
+     * including the roll over of months above 11, and rejects malformed expiry dates rather than
+     * failing on them.
+     */
+    public void testCardCheckMatchesReference() {
+        Random random = new Random(7);
+        String[] expiries = {"00/25", "01/25", "11/23", "12/23", "13/23", "99/23", "+5/24", "12/99", "1/25", "ab/cd", "-1/25", "05-24"};
+        for (int n = 0; n < 20000; n++) {
+            String cvv = randomDigits(random, 2 + random.nextInt(3));
+            String number = randomDigits(random, 15 + random.nextInt(3));
+            if (random.nextInt(10) == 0) {
+                number = number.replace('3', 'x');
+            }
+            String expiry = random.nextBoolean() ? expiries[random.nextInt(expiries.length)]
+                    : String.format("%02d/%02d", random.nextInt(14), random.nextInt(100));
+            LocalDate orderDate = LocalDate.of(2020 + random.nextInt(10), 1 + random.nextInt(12), 1 + random.nextInt(28));
+            CreditCardInformation card = new CreditCardInformation(number, expiry, cvv);
+
+            String expected, actual;
+            try {
+                expected = referenceCardCheck(card, orderDate).toString();
+            } catch (RuntimeException e) {
+                expected = e.getClass().getSimpleName();
+            }
+            try {
+                actual = OrderValidator.checkCard(card, orderDate).toString();
+            } catch (RuntimeException e) {
+                actual = e.getClass().getSimpleName();
+            }
+            assertEquals(number + " " + expiry + " " + cvv + " " + orderDate, expected, actual);
+        }
+    }
+
+    private static String randomDigits(Random random, int length) {
+        StringBuilder digits = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            digits.append(random.nextInt(10));
+        }
+        return digits.toString();
+    }
+
+    // The card checks as OrderValidator made them before they were fused into one pass, with
+    // malformed expiry dates reported as invalid.
+    private static OrderValidationCode referenceCardCheck(CreditCardInformation card, LocalDate orderDate) {
+        if (!card.getCvv().matches("[0-9]{3}")) {
+            return OrderValidationCode.CVV_INVALID;
+        }
+        String cardNumber = card.getCreditCardNumber();
+        if (!cardNumber.matches("[0-9]{16}")) {
+            return OrderValidationCode.CARD_NUMBER_INVALID;
+        }
+        int nSum = 0;
+        boolean isSecond = false;
+        for (int i = cardNumber.length() - 1; i >= 0; i--) {
+            int d = cardNumber.charAt(i) - '0';
+            if (isSecond) d *= 2;
+            nSum += d / 10;
+            nSum += d % 10;
+            isSecond = !isSecond;
+        }
+        if (nSum % 10 != 0) {
+            return OrderValidationCode.CARD_NUMBER_INVALID;
+        }
+        String cardExpiry = card.getCreditCardExpiry();
+        if (!cardExpiry.matches("[0-9]{2}/[0-9]{2}")) {
+            return OrderValidationCode.EXPIRY_DATE_INVALID;
+        }
+        int month = Integer.parseInt(cardExpiry.substring(0, 2));
+        int year = Integer.parseInt("20" + cardExpiry.substring(3, 5));
+        if (month > 11) {
+            month = 1;
+            year += 1;
+        } else {
+            month += 1;
+        }
+        if (!orderDate.isBefore(LocalDate.of(year, month, 1))) {
+            return OrderValidationCode.EXPIRY_DATE_INVALID;
+        }
+        return OrderValidationCode.NO_ERROR;
+    }
+
+    /**
+     * Validating in bulk, in parallel, gives every order the same code as validating one at a time,
+     * keeps the valid orders in sequence and counts each code.
+     */
+    public void testValidateAllMatchesSequential() {
+        Restaurant[] restaurants = TestConstraints.getDefinedRestaurants();
+        Order[] bulk = new Order[3000];
+        Order[] single = new Order[bulk.length];
+        Random random = new Random(11);
+        for (int i = 0; i < bulk.length; i++) {
+            long seed = random.nextLong();
+            bulk[i] = randomOrder(new Random(seed), restaurants, i);
+            single[i] = randomOrder(new Random(seed), restaurants, i);
+        }
+
+        OrderValidator.ValidationResult result = new OrderValidator().validateAll(bulk, restaurants);
+        OrderValidator validator = new OrderValidator();
+        ArrayList<String> expectedValid = new ArrayList<>();
+        for (int i = 0; i < single.length; i++) {
+            validator.validateOrder(single[i], restaurants);
+            assertEquals(single[i].getOrderValidationCode(), bulk[i].getOrderValidationCode());
+            assertEquals(single[i].getOrderStatus(), bulk[i].getOrderStatus());
+            if (single[i].getOrderStatus() != OrderStatus.INVALID) {
+                expectedValid.add(single[i].getOrderNo());
+            }
+        }
+
+        ArrayList<String> valid = new ArrayList<>();
+        result.getValidOrders().forEach(order -> valid.add(order.getOrderNo()));
+        assertEquals(expectedValid, valid);
+        assertEquals(expectedValid.size(), result.getCount(OrderValidationCode.NO_ERROR));
+        assertEquals(bulk.length, result.getCodeCounts().values().stream().mapToInt(Integer::intValue).sum());
+        assertTrue(result.getCodeCounts().size() > 3);
+    }
+
+    private static Order randomOrder(Random random, Restaurant[] restaurants, int i) {
+        Pizza[] menu = restaurants[random.nextInt(restaurants.length)].menu();
+        Pizza[] pizzas = {menu[random.nextInt(menu.length)]};
+        if (random.nextInt(8) == 0) {
+            Pizza[] other = restaurants[random.nextInt(restaurants.length)].menu();
+            pizzas = new Pizza[]{pizzas[0], other[random.nextInt(other.length)]};
+        }
+        int total = Arrays.stream(pizzas).mapToInt(Pizza::priceInPence).sum() + SystemConstants.ORDER_CHARGE_IN_PENCE;
+        if (random.nextInt(8) == 0) {
+            total += 1;
+        }
+        String cvv = random.nextInt(8) == 0 ? "12" : "123";
+        String number = random.nextInt(8) == 0 ? "4111111111111112" : "4111111111111111";
+        String expiry = random.nextInt(8) == 0 ? "01/20" : "12/99";
+        return new Order("ORDER" + i, LocalDate.of(2023, 9, 1 + random.nextInt(30)),
+                OrderStatus.UNDEFINED, OrderValidationCode.UNDEFINED, total, pizzas,
+                new CreditCardInformation(number, expiry, cvv));
+    }
 }
\ No newline at end of file
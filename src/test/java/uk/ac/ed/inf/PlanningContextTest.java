@@ -0,0 +1,46 @@
+package uk.ac.ed.inf;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import uk.ac.ed.inf.ilp.data.NamedRegion;
+import uk.ac.ed.inf.ilp.data.Order;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+
+public class PlanningContextTest extends TestCase {
+    public PlanningContextTest(String testName) {
+        super(testName);
+    }
+
+    public static Test suite() {
+        return new TestSuite(PlanningContextTest.class);
+    }
+
+    /**
+     * A context opened while another holds the route store plans without the store, and plans the
+     * same flight path.
+     */
+    public void testPlansWhileStoreIsInUse() throws IOException {
+        NamedRegion[] noFlyZones = Fixtures.noFlyZones();
+        NamedRegion centralArea = Fixtures.centralArea();
+        MenuIndex menuIndex = new MenuIndex(Fixtures.restaurants());
+        Order[] orders = Fixtures.orders(menuIndex.getRestaurants(), LocalDate.of(2023, 11, 15), 20, 17);
+        List<Order> validOrders = App.validateOrders(orders, menuIndex);
+
+        try (PlanningContext first = PlanningContext.open(noFlyZones, centralArea, new RouteCache());
+             PlanningContext second = PlanningContext.open(noFlyZones, centralArea, new RouteCache())) {
+            FlightPathBuffer expected = first.newApp(menuIndex, validOrders).routeBuffer(1);
+            FlightPathBuffer actual = second.newApp(menuIndex, validOrders).routeBuffer(1);
+
+            assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.getAngle(i), actual.getAngle(i));
+                assertEquals(expected.getToLng(i), actual.getToLng(i));
+                assertEquals(expected.getToLat(i), actual.getToLat(i));
+            }
+        }
+    }
+}
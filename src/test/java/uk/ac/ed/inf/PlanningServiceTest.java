@@ -0,0 +1,66 @@
+package uk.ac.ed.inf;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.time.Duration;
+
+public class PlanningServiceTest extends TestCase {
+    public PlanningServiceTest(String testName) {
+        super(testName);
+    }
+
+    public static Test suite() {
+        return new TestSuite(PlanningServiceTest.class);
+    }
+
+    /**
+     * Later dates reuse the reference data and the routes planned for earlier ones.
+     */
+    public void testKeepsRoutesBetweenDates() throws Exception {
+        try (LocalRestServer server = new LocalRestServer(Duration.ZERO, 20);
+             PlanningService service = new PlanningService(server.getUrl(), 60_000)) {
+            PlanningService.PlanResult first = service.plan("2023-09-01");
+            assertTrue(first.refreshed());
+            assertEquals(20, first.orders());
+            assertTrue(new File("resultfiles/flightpath-2023-09-01.json").exists());
+
+            long hits = service.getRouteCache().getHitCount();
+            PlanningService.PlanResult second = service.plan("2023-09-02");
+            assertFalse(second.refreshed());
+            assertTrue(new File("resultfiles/drone-2023-09-02.geojson").exists());
+            // Each restaurant's route is planned at most once across both dates.
+            assertTrue(service.getRouteCache().getHitCount() > hits);
+            assertTrue(service.getRouteCache().getMissCount() <= RestService.restResaurant(server.getUrl()).length);
+        }
+    }
+
+    /**
+     * Each request gets one reply line, and bad requests do not end the session.
+     */
+    public void testServeProtocol() throws Exception {
+        try (LocalRestServer server = new LocalRestServer(Duration.ZERO, 5);
+             PlanningService service = new PlanningService(server.getUrl(), 0)) {
+            StringWriter replies = new StringWriter();
+            boolean quit = service.serve(
+                    new BufferedReader(new StringReader("plan 2023-09-03\nplan 2023-13-45\n\nfly\nstats\nquit\nplan 2023-09-04\n")),
+                    new PrintWriter(replies));
+            assertTrue(quit);
+
+            String[] lines = replies.toString().split("\\R");
+            assertEquals(5, lines.length);
+            assertTrue(lines[0], lines[0].startsWith("OK 2023-09-03 orders=5"));
+            assertTrue(lines[0], lines[0].contains("refreshed=true"));
+            assertTrue(lines[1], lines[1].startsWith("ERROR"));
+            assertTrue(lines[2], lines[2].startsWith("ERROR unknown command"));
+            assertTrue(lines[3], lines[3].startsWith("OK dates=1"));
+            assertEquals("OK bye", lines[4]);
+        }
+    }
+}
@@ -10,7 +10,22 @@ import org.mockito.MockedStatic;
 import org.mockito.Mockito;
 import uk.ac.ed.inf.ilp.data.*;
 
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 
@@ -185,4 +200,133 @@ public class RestServiceTest extends TestCase {
         } catch (Exception e) {
         }
     }
+
+    public void testLocalServer() throws IOException, InterruptedException {
+        try (LocalRestServer server = new LocalRestServer(Duration.ZERO, 20)) {
+            String url = server.getUrl();
+            assertEquals("true", RestService.isAlive(url));
+            assertEquals(7, RestService.restResaurant(url).length);
+            assertEquals("central", RestService.restCentralArea(url).name());
+            assertEquals(4, RestService.restNoFlyZone(url).length);
+
+            Order[] orders = RestService.restOrder(url, "2023-11-15");
+            assertEquals(20, orders.length);
+            assertEquals(LocalDate.of(2023, 11, 15), orders[0].getOrderDate());
+            assertEquals(orders[3].getOrderNo(), RestService.restOrder(url, "2023-11-15")[3].getOrderNo());
+        }
+    }
+
+
+    public void testLocalServerLatency() throws IOException, InterruptedException {
+        try (LocalRestServer server = new LocalRestServer(Duration.ofMillis(200), 0)) {
+            long start = System.nanoTime();
+            assertEquals("true", RestService.isAlive(server.getUrl()));
+            assertTrue(System.nanoTime() - start >= Duration.ofMillis(200).toNanos());
+        }
+    }
+
+    public void testFetchAllInParallel() throws IOException, InterruptedException {
+        try (LocalRestServer server = new LocalRestServer(Duration.ofMillis(300), 20)) {
+            long start = System.nanoTime();
+            RestService.ServiceData data = RestService.fetchAll(server.getUrl(), "2023-11-15");
+            long elapsed = System.nanoTime() - start;
+
+            assertEquals(7, data.restaurants().length);
+            assertEquals(20, data.orders().length);
+            assertEquals("central", data.centralArea().name());
+            assertEquals(4, data.noFlyZones().length);
+            assertTrue("Five requests should take about two round trips", elapsed < Duration.ofMillis(1200).toNanos());
+        }
+    }
+
+    public void testFetchAllDates() throws IOException, InterruptedException {
+        try (LocalRestServer server = new LocalRestServer(Duration.ZERO, 20)) {
+            List<String> dates = List.of("2023-11-15", "2023-11-16", "2023-11-17");
+            RestService.BatchData data = RestService.fetchAll(server.getUrl(), dates);
+
+            assertEquals(7, data.restaurants().length);
+            assertEquals(dates.size(), data.orders().size());
+            for (int i = 0; i < dates.size(); i++) {
+                Order[] expected = RestService.restOrder(server.getUrl(), dates.get(i));
+                assertEquals(expected.length, data.orders().get(i).length);
+                assertEquals(expected[0].getOrderNo(), data.orders().get(i)[0].getOrderNo());
+            }
+        }
+    }
+
+    public void testFetchAllPropagatesFailure() throws InterruptedException {
+        try (LocalRestServer server = new LocalRestServer(Duration.ZERO, 20)) {
+            RestService.fetchAll(server.getUrl(), "not-a-date");
+            fail("A failed request should fail the whole fetch");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("400"));
+        }
+    }
+
+    /**
+     * Cancelling an orders request whose body is still arriving closes the connection, so the
+     * server stops sending.
+     */
+    public void testCancelledOrdersRequestClosesConnection() throws IOException, InterruptedException {
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch disconnected = new CountDownLatch(1);
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/orders/", exchange -> {
+            exchange.sendResponseHeaders(200, 0);
+            // An array that never ends, sent slowly until the client goes away
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write('[');
+                for (int i = 0; i < 1000; i++) {
+                    out.write(' ');
+                    out.flush();
+                    sending.countDown();
+                    Thread.sleep(10);
+                }
+            } catch (IOException e) {
+                disconnected.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        server.start();
+        try {
+            CompletableFuture<Order[]> orders = RestService.restOrderAsync("http://localhost:" + server.getAddress().getPort(), "2023-11-15");
+            assertTrue(sending.await(5, TimeUnit.SECONDS));
+            Thread.sleep(100);
+            orders.cancel(true);
+            assertTrue("The server should see the connection closed", disconnected.await(5, TimeUnit.SECONDS));
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    public void testStreamOrders() throws IOException, InterruptedException {
+        try (LocalRestServer server = new LocalRestServer(Duration.ZERO, 500)) {
+            Order[] expected = RestService.restOrder(server.getUrl(), "2023-11-15");
+            List<Order> streamed = new ArrayList<>();
+            int count = RestService.streamOrders(server.getUrl(), "2023-11-15", streamed::add);
+
+            assertEquals(500, count);
+            assertEquals(expected.length, streamed.size());
+            for (int i = 0; i < expected.length; i++) {
+                assertEquals(expected[i].getOrderNo(), streamed.get(i).getOrderNo());
+                assertEquals(expected[i].getCreditCardInformation().getCreditCardNumber(), streamed.get(i).getCreditCardInformation().getCreditCardNumber());
+            }
+        }
+    }
+
+
+    public void testReadOrdersSingleObjectAndBadInput() throws IOException {
+        String single = "{\"orderNo\":\"1A2B3C4D\",\"orderDate\":\"2023-11-15\",\"priceTotalInPence\":1100,\"pizzasInOrder\":[]}";
+        List<Order> orders = new ArrayList<>();
+        assertEquals(1, RestService.readOrders(new ByteArrayInputStream(single.getBytes(StandardCharsets.UTF_8)), orders::add));
+        assertEquals("1A2B3C4D", orders.get(0).getOrderNo());
+
+        try {
+            RestService.readOrders(new ByteArrayInputStream("[1, 2]".getBytes(StandardCharsets.UTF_8)), orders::add);
+            fail("Non-order elements should be rejected");
+        } catch (IOException e) {
+        }
+    }
 }
@@ -0,0 +1,85 @@
+package uk.ac.ed.inf;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+public class ResultFileReaderTest extends TestCase {
+    public ResultFileReaderTest(String testName) {
+        super(testName);
+    }
+
+    public static Test suite() {
+        return new TestSuite(ResultFileReaderTest.class);
+    }
+
+    private static FlightPathBuffer route(int moves) {
+        FlightPathBuffer route = new FlightPathBuffer();
+        int order = route.orderIndex("2E58F726");
+        for (int i = 0; i < moves; i++) {
+            route.add(-3.186874 + i * 0.00015, 55.944494 + i * 0.0001, (i * 22.5) % 360,
+                    -3.186874 + (i + 1) * 0.00015, 55.944494 + (i + 1) * 0.0001, order);
+        }
+        return route;
+    }
+
+    private static byte[] read(Path file) throws IOException {
+        try (InputStream in = ResultFileReader.open(file)) {
+            return in.readAllBytes();
+        }
+    }
+
+    /**
+     * Files named with ".gz" are compressed, and read back the same as the uncompressed files.
+     */
+    public void testCompressedFilesReadBackTheSame() throws IOException {
+        Path dir = Files.createTempDirectory("compressed");
+        Path flightpath = dir.resolve("flightpath.json");
+        Path flightpathGz = dir.resolve("flightpath.json" + FileOutputter.GZIP_SUFFIX);
+        Path drone = dir.resolve("drone.geojson");
+        Path droneGz = dir.resolve("drone.geojson" + FileOutputter.GZIP_SUFFIX);
+        try {
+            FlightPathBuffer moves = route(20_000);
+            FileOutputter.writeFlightpathJson(moves, flightpath);
+            FileOutputter.writeGeoJson(moves, drone);
+            try (FileOutputter.RouteWriter writer = FileOutputter.openRouteWriter(flightpathGz, droneGz)) {
+                writer.append(moves);
+                writer.finish();
+            }
+
+            byte[] compressed = Files.readAllBytes(flightpathGz);
+            assertEquals((byte) 0x1f, compressed[0]);
+            assertEquals((byte) 0x8b, compressed[1]);
+            assertTrue(compressed.length < Files.size(flightpath) / 4);
+
+            assertTrue(Arrays.equals(Files.readAllBytes(flightpath), read(flightpathGz)));
+            assertTrue(Arrays.equals(Files.readAllBytes(drone), read(droneGz)));
+            assertTrue(Arrays.equals(Files.readAllBytes(flightpath), read(flightpath)));
+        } finally {
+            for (Path file : new Path[]{flightpath, flightpathGz, drone, droneGz}) {
+                Files.deleteIfExists(file);
+            }
+            Files.delete(dir);
+        }
+    }
+
+    /**
+     * Empty and one-byte files are read as they are.
+     */
+    public void testShortFiles() throws IOException {
+        Path file = Files.createTempFile("short", ".json");
+        try {
+            assertEquals(0, read(file).length);
+            Files.write(file, new byte[]{0x1f});
+            assertTrue(Arrays.equals(new byte[]{0x1f}, read(file)));
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
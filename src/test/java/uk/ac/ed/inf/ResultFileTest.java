@@ -0,0 +1,118 @@
+package uk.ac.ed.inf;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+public class ResultFileTest extends TestCase {
+    private Path dir;
+
+    public ResultFileTest(String testName) {
+        super(testName);
+    }
+
+    public static Test suite() {
+        return new TestSuite(ResultFileTest.class);
+    }
+
+    @Override
+    protected void setUp() throws IOException {
+        dir = Files.createTempDirectory("resultfile");
+    }
+
+    @Override
+    protected void tearDown() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(dir);
+    }
+
+    private List<String> fileNames() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.map(file -> file.getFileName().toString()).sorted().toList();
+        }
+    }
+
+    /**
+     * Text larger than all the buffers, with characters of every UTF-8 length, is written exactly.
+     */
+    public void testLargeText() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; text.length() < 1_000_000; i++) {
+            text.append("order ").append(i).append(" \u00e9\u20ac\ud83c\udf55,");
+        }
+        Path file = dir.resolve("text.json");
+        ResultFile.write(file, text);
+        assertEquals(text.toString(), Files.readString(file, StandardCharsets.UTF_8));
+        assertEquals(List.of("text.json"), fileNames());
+    }
+
+    /**
+     * Bytes written through the stream and directly are appended in order.
+     */
+    public void testBytes() throws IOException {
+        byte[] expected = new byte[300_000];
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = (byte) (i * 31);
+        }
+        Path file = dir.resolve("bytes.bin");
+        try (ResultFile resultFile = ResultFile.create(file)) {
+            OutputStream out = resultFile.getOutputStream();
+            out.write(expected[0]);
+            out.write(expected, 1, 99_999);
+            resultFile.write(expected, 100_000, 200_000);
+            resultFile.commit();
+        }
+        assertTrue(Arrays.equals(expected, Files.readAllBytes(file)));
+    }
+
+    /**
+     * A file closed without committing leaves the old file in place and no temporary file behind.
+     */
+    public void testUncommittedFileIsDiscarded() throws IOException {
+        Path file = dir.resolve("deliveries.json");
+        ResultFile.write(file, "old");
+        try (ResultFile resultFile = ResultFile.create(file)) {
+            resultFile.write("new content that is never committed");
+            assertEquals(2, fileNames().size());
+        }
+        assertEquals("old", Files.readString(file));
+        assertEquals(List.of("deliveries.json"), fileNames());
+    }
+
+    /**
+     * Files written at the same time do not share buffers.
+     */
+    public void testConcurrentFiles() throws IOException {
+        List<CompletableFuture<Void>> writes = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            Path file = dir.resolve("file" + i);
+            String text = String.valueOf((char) ('a' + i)).repeat(200_000 + i);
+            writes.add(CompletableFuture.runAsync(() -> {
+                try {
+                    ResultFile.write(file, text);
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            }));
+        }
+        writes.forEach(CompletableFuture::join);
+        for (int i = 0; i < 8; i++) {
+            assertEquals(String.valueOf((char) ('a' + i)).repeat(200_000 + i), Files.readString(dir.resolve("file" + i)));
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package uk.ac.ed.inf;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import uk.ac.ed.inf.ilp.data.LngLat;
+import uk.ac.ed.inf.ilp.data.NamedRegion;
+import uk.ac.ed.inf.ilp.data.Restaurant;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class RouteCacheTest extends TestCase {
+    public RouteCacheTest(String testName) {
+        super(testName);
+    }
+
+    public static Test suite() {
+        return new TestSuite(RouteCacheTest.class);
+    }
+
+    private static final LngLat AT = new LngLat(-3.186874, 55.944494);
+
+    /**
+     * Least recently used routes are evicted once the total number of moves exceeds the limit.
+     */
+    public void testEvictsLeastRecentlyUsedByMoves() {
+        RouteCache cache = new RouteCache(25);
+        RouteCache.Key first = key(1), second = key(2), third = key(3);
+
+        cache.put(first, route(10));
+        cache.put(second, route(10));
+        assertNotNull(cache.get(first, k -> {
+            throw new AssertionError("Cached route should not be planned");
+        }));
+        cache.put(third, route(10));
+
+        assertEquals(2, cache.size());
+        assertEquals(20, cache.getMoveCount());
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(10, cache.get(second, k -> route(10)).size());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+
+        // A route heavier than the whole cache is returned but not kept.
+        assertEquals(30, cache.get(key(4), k -> route(30)).size());
+        assertEquals(20, cache.getMoveCount());
+    }
+
+    /**
+     * Keys holding the same doubles are equal, and differ if any coordinate or the region hash differs.
+     */
+    public void testKeyEquality() {
+        assertEquals(new RouteCache.Key(1.5, 2, 3, 4, 7), new RouteCache.Key(1.5, 2, 3, 4, 7));
+        assertFalse(new RouteCache.Key(1.5, 2, 3, 4, 7).equals(new RouteCache.Key(1.5, 2, 3, 4, 8)));
+        // The old string keys ran the numbers together, so these two collided.
+        assertFalse(new RouteCache.Key(1.12, 3.4, 1, 1, 0).equals(new RouteCache.Key(1.1, 23.4, 1, 1, 0)));
+    }
+
+    /**
+     * A route requested by many threads at once is planned only once.
+     */
+    public void testConcurrentRequestsPlanOnce() throws Exception {
+        RouteCache cache = new RouteCache();
+        AtomicInteger plans = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<FlightPathBuffer>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return cache.get(key(1), k -> {
+                        plans.incrementAndGet();
+                        return route(5);
+                    });
+                }));
+            }
+            start.countDown();
+            FlightPathBuffer first = results.get(0).get();
+            for (Future<FlightPathBuffer> result : results) {
+                assertSame(first, result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, plans.get());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(7, cache.getHitCount());
+    }
+
+    /**
+     * A thread waiting for a route whose planning fails with an Error is released, and the route
+     * can be planned again afterwards.
+     */
+    public void testPlanningErrorReleasesWaiters() throws Exception {
+        RouteCache cache = new RouteCache();
+        CountDownLatch planning = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<FlightPathBuffer> failing = executor.submit(() -> cache.get(key(1), k -> {
+                planning.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new StackOverflowError();
+            }));
+            planning.await();
+            Future<FlightPathBuffer> waiting = executor.submit(() -> cache.get(key(1), k -> route(5)));
+            Thread.sleep(50);
+            release.countDown();
+
+            try {
+                failing.get(5, TimeUnit.SECONDS);
+                fail("Planning should have failed");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof StackOverflowError);
+            }
+            try {
+                // Either joined the failed planning or planned the route itself, but did not hang
+                assertEquals(5, waiting.get(5, TimeUnit.SECONDS).size());
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof StackOverflowError);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(5, cache.get(key(1), k -> route(5)).size());
+    }
+
+    /**
+     * FlightPaths sharing a cache reuse each other's routes, but only for the same regions.
+     */
+    public void testSharedAcrossFlightPaths() {
+        NamedRegion[] noFlyZones = TestConstraints.getNoFlyZones();
+        NamedRegion centralArea = TestConstraints.getCentralArea();
+        Restaurant restaurant = TestConstraints.getDefinedRestaurants()[0];
+        RouteCache cache = new RouteCache();
+
+        FlightPath first = new FlightPath(noFlyZones, centralArea, cache);
+        List<Node> planned = first.findTotalPath(restaurant.location(), AT, "Test");
+        FlightPath second = new FlightPath(noFlyZones, centralArea, cache);
+        assertEquals(planned, second.findTotalPath(restaurant.location(), AT, "Test"));
+        assertEquals(0, second.getExpandedNodeCount());
+
+        FlightPath open = new FlightPath(new NamedRegion[0], centralArea, cache);
+        open.findTotalPath(restaurant.location(), AT, "Test");
+        assertTrue(open.getExpandedNodeCount() > 0);
+        assertEquals(2, cache.size());
+    }
+
+    private static RouteCache.Key key(int i) {
+        return new RouteCache.Key(i, i, 0, 0, 0);
+    }
+
+    private static FlightPathBuffer route(int moves) {
+        FlightPathBuffer route = new FlightPathBuffer(moves);
+        for (int i = 0; i < moves; i++) {
+            route.add(i, 0, 0, i + 1, 0, FlightPathBuffer.NO_ORDER);
+        }
+        return route;
+    }
+}
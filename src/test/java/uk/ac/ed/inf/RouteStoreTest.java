@@ -0,0 +1,157 @@
+package uk.ac.ed.inf;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import uk.ac.ed.inf.ilp.data.LngLat;
+import uk.ac.ed.inf.ilp.data.NamedRegion;
+import uk.ac.ed.inf.ilp.data.Restaurant;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+public class RouteStoreTest extends TestCase {
+    public RouteStoreTest(String testName) {
+        super(testName);
+    }
+
+    public static Test suite() {
+        return new TestSuite(RouteStoreTest.class);
+    }
+
+    private static final LngLat AT = new LngLat(-3.186874, 55.944494);
+
+    /**
+     * A second run with the same geometry reads every route from the store and plans nothing.
+     */
+    public void testWarmStartReusesStoredRoutes() throws IOException {
+        NamedRegion[] noFlyZones = TestConstraints.getNoFlyZones();
+        NamedRegion centralArea = TestConstraints.getCentralArea();
+        Restaurant[] restaurants = TestConstraints.getDefinedRestaurants();
+
+        Path file = Files.createTempFile("routestore", ".bin");
+        try {
+            FlightPath cold;
+            try (RouteStore store = RouteStore.open(file, noFlyZones, centralArea).orElseThrow()) {
+                cold = new FlightPath(noFlyZones, centralArea, new RouteCache(), store);
+                for (Restaurant restaurant : restaurants) {
+                    cold.findTotalPath(restaurant.location(), AT, "Test");
+                }
+                assertEquals(restaurants.length, store.size());
+            }
+
+            try (RouteStore store = RouteStore.open(file, noFlyZones, centralArea).orElseThrow()) {
+                assertEquals(restaurants.length, store.size());
+                FlightPath warm = new FlightPath(noFlyZones, centralArea, new RouteCache(), store);
+                for (Restaurant restaurant : restaurants) {
+                    List<Node> expected = cold.findTotalPath(restaurant.location(), AT, "Test");
+                    assertEquals(expected, warm.findTotalPath(restaurant.location(), AT, "Test"));
+                }
+                assertEquals(0, warm.getExpandedNodeCount());
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * The store is emptied when the geometry changes, and a record cut short is dropped.
+     */
+    public void testInvalidatedAndRepaired() throws IOException {
+        NamedRegion[] noFlyZones = TestConstraints.getNoFlyZones();
+        NamedRegion centralArea = TestConstraints.getCentralArea();
+        Restaurant restaurant = TestConstraints.getDefinedRestaurants()[0];
+
+        Path file = Files.createTempFile("routestore", ".bin");
+        try {
+            try (RouteStore store = RouteStore.open(file, noFlyZones, centralArea).orElseThrow()) {
+                new FlightPath(noFlyZones, centralArea, new RouteCache(), store).findTotalPath(restaurant.location(), AT, "Test");
+            }
+            long size = Files.size(file);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(size - 1);
+            }
+            try (RouteStore store = RouteStore.open(file, noFlyZones, centralArea).orElseThrow()) {
+                assertEquals(0, store.size());
+            }
+
+            try (RouteStore store = RouteStore.open(file, noFlyZones, centralArea).orElseThrow()) {
+                new FlightPath(noFlyZones, centralArea, new RouteCache(), store).findTotalPath(restaurant.location(), AT, "Test");
+                assertEquals(1, store.size());
+            }
+            NamedRegion[] fewerZones = {noFlyZones[0]};
+            try (RouteStore store = RouteStore.open(file, fewerZones, centralArea).orElseThrow()) {
+                assertEquals(0, store.size());
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * A record holding a byte that is not a move is dropped, and the records before it are kept.
+     */
+    public void testCorruptMovesAreDropped() throws IOException {
+        NamedRegion[] noFlyZones = TestConstraints.getNoFlyZones();
+        NamedRegion centralArea = TestConstraints.getCentralArea();
+        Restaurant[] restaurants = TestConstraints.getDefinedRestaurants();
+
+        Path file = Files.createTempFile("routestore", ".bin");
+        try {
+            try (RouteStore store = RouteStore.open(file, noFlyZones, centralArea).orElseThrow()) {
+                FlightPath flightPath = new FlightPath(noFlyZones, centralArea, new RouteCache(), store);
+                flightPath.findTotalPath(restaurants[0].location(), AT, "Test");
+                flightPath.findTotalPath(restaurants[1].location(), AT, "Test");
+            }
+            long size = Files.size(file);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                // The last byte is the final hover of the second route
+                channel.write(ByteBuffer.wrap(new byte[]{20}), size - 1);
+            }
+
+            try (RouteStore store = RouteStore.open(file, noFlyZones, centralArea).orElseThrow()) {
+                assertEquals(1, store.size());
+                FlightPath flightPath = new FlightPath(noFlyZones, centralArea, new RouteCache(), store);
+                flightPath.findTotalPath(restaurants[0].location(), AT, "Test");
+                assertEquals(0, flightPath.getExpandedNodeCount());
+            }
+            assertTrue(Files.size(file) < size);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * A file that is not a route store is left alone, and a store in use by another run is not
+     * opened again; planning goes on without the store in both cases.
+     */
+    public void testUnusableFilesAreSkipped() throws IOException {
+        NamedRegion[] noFlyZones = TestConstraints.getNoFlyZones();
+        NamedRegion centralArea = TestConstraints.getCentralArea();
+
+        Path file = Files.createTempFile("routestore", ".bin");
+        try {
+            byte[] foreign = "not a route store, but long enough to have a header".getBytes();
+            Files.write(file, foreign);
+            assertTrue(RouteStore.open(file, noFlyZones, centralArea).isEmpty());
+            assertTrue(Arrays.equals(foreign, Files.readAllBytes(file)));
+
+            Files.delete(file);
+            try (RouteStore store = RouteStore.open(file, noFlyZones, centralArea).orElseThrow()) {
+                assertTrue(RouteStore.open(file, noFlyZones, centralArea).isEmpty());
+                assertEquals(0, store.size());
+            }
+            try (RouteStore store = RouteStore.open(file, noFlyZones, centralArea).orElseThrow()) {
+                assertEquals(0, store.size());
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package uk.ac.ed.inf;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import uk.ac.ed.inf.ilp.data.LngLat;
+import uk.ac.ed.inf.ilp.data.NamedRegion;
+import uk.ac.ed.inf.ilp.data.Restaurant;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+public class RouteTableTest extends TestCase {
+    public RouteTableTest(String testName) {
+        super(testName);
+    }
+
+    public static Test suite() {
+        return new TestSuite(RouteTableTest.class);
+    }
+
+    private static final LngLat AT = new LngLat(-3.186874, 55.944494);
+
+    /**
+     * Routes read back from a table file must be identical to freshly planned routes.
+     */
+    public void testWrittenTableMatchesPlannedRoutes() throws IOException {
+        NamedRegion[] noFlyZones = TestConstraints.getNoFlyZones();
+        NamedRegion centralArea = TestConstraints.getCentralArea();
+        Restaurant[] restaurants = TestConstraints.getDefinedRestaurants();
+
+        Path file = Files.createTempFile("routetable", ".bin");
+        try {
+            RouteTable.build(noFlyZones, centralArea, restaurants, AT).write(file);
+            Optional<RouteTable> loaded = RouteTable.load(file, noFlyZones, centralArea);
+            assertTrue(loaded.isPresent());
+            assertEquals(restaurants.length, loaded.get().size());
+
+            FlightPath preloaded = new FlightPath(noFlyZones, centralArea);
+            loaded.get().preload(preloaded);
+            FlightPath planned = new FlightPath(noFlyZones, centralArea);
+
+            for (Restaurant restaurant : restaurants) {
+                List<Node> fromTable = preloaded.findTotalPath(restaurant.location(), AT, "Test");
+                List<Node> fromSearch = planned.findTotalPath(restaurant.location(), AT, "Test");
+                assertEquals(fromSearch.size(), fromTable.size());
+                for (int i = 0; i < fromSearch.size(); i++) {
+                    assertEquals(fromSearch.get(i).toString(), fromTable.get(i).toString());
+                }
+            }
+            // Every route came from the table, so nothing was searched.
+            assertEquals(0, preloaded.getExpandedNodeCount());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * A table built for other geometry must not be used.
+     */
+    public void testChangedGeometryIsIgnored() throws IOException {
+        NamedRegion[] noFlyZones = TestConstraints.getNoFlyZones();
+        NamedRegion centralArea = TestConstraints.getCentralArea();
+
+        Path file = Files.createTempFile("routetable", ".bin");
+        try {
+            RouteTable.build(noFlyZones, centralArea, TestConstraints.getDefinedRestaurants(), AT).write(file);
+            NamedRegion[] fewerZones = new NamedRegion[]{noFlyZones[0]};
+            assertFalse(RouteTable.load(file, fewerZones, centralArea).isPresent());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * A missing table file means every route is planned.
+     */
+    public void testMissingFile() throws IOException {
+        Path file = new File("does-not-exist-routetable.bin").toPath();
+        assertFalse(RouteTable.load(file, TestConstraints.getNoFlyZones(), TestConstraints.getCentralArea()).isPresent());
+    }
+
+    /**
+     * A truncated, foreign or corrupt table file is ignored rather than failing the run.
+     */
+    public void testInvalidFilesAreIgnored() throws IOException {
+        NamedRegion[] noFlyZones = TestConstraints.getNoFlyZones();
+        NamedRegion centralArea = TestConstraints.getCentralArea();
+
+        Path file = Files.createTempFile("routetable", ".bin");
+        try {
+            RouteTable.build(noFlyZones, centralArea, TestConstraints.getDefinedRestaurants(), AT).write(file);
+            byte[] valid = Files.readAllBytes(file);
+
+            Files.write(file, Arrays.copyOf(valid, valid.length - 3));
+            assertFalse(RouteTable.load(file, noFlyZones, centralArea).isPresent());
+
+            Files.write(file, "not a route table".getBytes());
+            assertFalse(RouteTable.load(file, noFlyZones, centralArea).isPresent());
+
+            // The move count of the first route, after the 14-byte header, the route count and two positions
+            byte[] corrupt = valid.clone();
+            ByteBuffer.wrap(corrupt).putInt(14 + 4 + 32, -5);
+            Files.write(file, corrupt);
+            assertFalse(RouteTable.load(file, noFlyZones, centralArea).isPresent());
+            ByteBuffer.wrap(corrupt).putInt(14 + 4 + 32, Integer.MAX_VALUE);
+            Files.write(file, corrupt);
+            assertFalse(RouteTable.load(file, noFlyZones, centralArea).isPresent());
+
+            // The first move of the first route, after its move count
+            corrupt = valid.clone();
+            corrupt[14 + 4 + 32 + 4] = 20;
+            Files.write(file, corrupt);
+            assertFalse(RouteTable.load(file, noFlyZones, centralArea).isPresent());
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -6,6 +6,7 @@ import uk.ac.ed.inf.ilp.data.Order;
 import uk.ac.ed.inf.ilp.data.Restaurant;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -15,7 +16,7 @@ import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 public class StressTest {
 
     @Test
-    void testStress() {
+    void testStress() throws IOException {
         String[] dates = { "2023-02-01", "2023-02-02", "2023-02-03", "2023-02-04", "2023-02-05",
                 "2023-02-06", "2023-02-07", "2023-02-08", "2023-02-09", "2023-02-10",
                 "2023-02-11", "2023-02-12", "2023-02-13", "2023-02-14", "2023-02-15",
@@ -24,14 +25,18 @@ public class StressTest {
                 "2023-02-26", "2023-02-27", "2023-02-28"
         };
 
-        String restServerUrl = "https://ilp-rest.azurewebsites.net/";
-        long startTime = System.currentTimeMillis();
+        // Runs against a local stand-in server unless a live service is given with -Dpizzadronz.restUrl
+        String liveUrl = System.getProperty("pizzadronz.restUrl");
+        try (LocalRestServer server = liveUrl == null ? new LocalRestServer(Duration.ZERO, 50) : null) {
+            String restServerUrl = server == null ? liveUrl : server.getUrl();
+            long startTime = System.currentTimeMillis();
 
-        performStressTest(dates, restServerUrl);
+            performStressTest(dates, restServerUrl);
 
-        long endTime = System.currentTimeMillis();
-        long executionTime = endTime - startTime;
-        System.out.println("Execution time: " + executionTime + " milliseconds");
+            long endTime = System.currentTimeMillis();
+            long executionTime = endTime - startTime;
+            System.out.println("Execution time: " + executionTime + " milliseconds");
+        }
     }
 
     private void performStressTest(String[] dates, String restServerUrl) {
@@ -6,6 +6,7 @@ import uk.ac.ed.inf.ilp.data.Order;
 import uk.ac.ed.inf.ilp.data.Restaurant;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -18,12 +19,16 @@ import static java.time.Duration.ofSeconds;
 public class TimingTest {
 
     @Test
-    void testMainPerformance() {
+    void testMainPerformance() throws IOException {
         String[] testDates = {"2023-11-15", "2023-11-16", "2023-11-17", "2023-11-18", "2023-11-19", "2023-11-20"};
-        String testUrl = "https://ilp-rest.azurewebsites.net/";
 
-        for (String date : testDates) {
-            runPerformanceTestForDate(date, testUrl);
+        // Runs against a local stand-in server unless a live service is given with -Dpizzadronz.restUrl
+        String liveUrl = System.getProperty("pizzadronz.restUrl");
+        try (LocalRestServer server = liveUrl == null ? new LocalRestServer(Duration.ZERO, 50) : null) {
+            String testUrl = server == null ? liveUrl : server.getUrl();
+            for (String date : testDates) {
+                runPerformanceTestForDate(date, testUrl);
+            }
         }
     }
 